@@ -0,0 +1,151 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	AreaLookupBench.java - Benchmarks the permission look-ups on synthetic worlds.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package org.miwarre.ap;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.risingworld.api.objects.Player;
+import net.risingworld.api.utils.Area;
+import net.risingworld.api.utils.BoundingInformation;
+import net.risingworld.api.utils.Vector3f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Times the entry points used by the event handlers to check permissions,
+ * on synthetic worlds of 100 to 100,000 areas, with little or much overlap
+ * (see SyntheticWorld):
+ * <ul>
+ * <li>point: Db.getPlayerPermissionsForPoint(), as for object and plant events;
+ * <li>bounding: Db.getPlayerPermissionsForBounding(), as for blueprint events;
+ * <li>enterLeave: Db.onPlayerArea(), entering and leaving an area, as for
+ * area events, which report the areas registered with the server;
+ * <li>match: Db.matchArea() on areas equal to, but distinct from, the
+ * registered ones, the path taken for areas the server does not report as is.
+ * </ul>
+ * <p>Each invocation takes the next of NUM_QUERIES random look-ups, by a
+ * player with specific permissions in some of the areas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AreaLookupBench
+{
+	//
+	// CONSTANTS
+	//
+	static final	int		NUM_QUERIES		= 4096;		// a power of 2
+	static final	int		MAX_BOX_SIDE	= 64;		// the max side of the boxes, in blocks
+	static final	long	SEED			= 0x41726561L;
+
+	//
+	// PARAMETERS
+	//
+	@Param({ "100", "1000", "10000", "100000" })
+	int				numAreas;
+	@Param({ "0.5", "2.0" })
+	float			overlap;
+
+	//
+	// FIELDS
+	//
+	private			SyntheticWorld			world;
+	private			Player					player;
+	private			Vector3f[]				points;
+	private			BoundingInformation[]	boxes;
+	private			Area[]					areas;		// the areas registered with the server
+	private			Area[]					rwAreas;	// areas equal to the registered ones
+	private			int						next;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception
+	{
+		world	= new SyntheticWorld(numAreas, overlap, 1, SEED);
+		player	= world.connectPlayer();
+		Random		rnd			= world.getRandom();
+		List<Area>	registered	= world.getAreas();
+		points	= new Vector3f[NUM_QUERIES];
+		boxes	= new BoundingInformation[NUM_QUERIES];
+		areas	= new Area[NUM_QUERIES];
+		rwAreas	= new Area[NUM_QUERIES];
+		for (int i = 0; i < NUM_QUERIES; i++)
+		{
+			points[i]	= world.randomPoint();
+			boxes[i]	= new BoundingInformation(world.randomPoint(), rnd.nextInt(MAX_BOX_SIDE / 2) + 0.5f,
+					rnd.nextInt(MAX_BOX_SIDE / 2) + 0.5f, rnd.nextInt(MAX_BOX_SIDE / 2) + 0.5f);
+			ProtArea	area	= (ProtArea)registered.get(rnd.nextInt(registered.size()));
+			areas[i]	= area;
+			rwAreas[i]	= new Area(new Vector3f(area.minX, area.minY, area.minZ),
+					new Vector3f(area.maxX, area.maxY, area.maxZ));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		world.close();
+	}
+
+	@Benchmark
+	public long point()
+	{
+		return Db.getPlayerPermissionsForPoint(player, points[nextQuery()]);
+	}
+
+	@Benchmark
+	public long bounding()
+	{
+		return Db.getPlayerPermissionsForBounding(player, boxes[nextQuery()]);
+	}
+
+	@Benchmark
+	public int enterLeave()
+	{
+		Area	area	= areas[nextQuery()];
+		return Db.onPlayerArea(player, area, true) + Db.onPlayerArea(player, area, false);
+	}
+
+	@Benchmark
+	public ProtArea match()
+	{
+		return Db.matchArea(rwAreas[nextQuery()]);
+	}
+
+	private int nextQuery()
+	{
+		return next = (next + 1) & (NUM_QUERIES - 1);
+	}
+}
@@ -0,0 +1,143 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	LatencyStats.java - A histogram of event handling times, reporting percentiles.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package org.miwarre.ap;
+
+/**
+ * A histogram of the times taken to handle a kind of event, from which
+ * percentiles can be reported.
+ * <p>Times are counted in logarithmic buckets, each power of 2 being split
+ * into SUB_BUCKETS linear sub-buckets: recording a time never allocates and
+ * takes constant time, and reported percentiles are never below the actual
+ * times and above them by less than 1/SUB_BUCKETS (under 1%).
+ * <p>Stats are not synchronised: each instance is expected to be recorded into
+ * by a single thread.
+ */
+class LatencyStats
+{
+	//
+	// CONSTANTS
+	//
+	private static final	int		SUB_BITS	= 7;
+	private static final	int		SUB_BUCKETS	= 1 << SUB_BITS;
+
+	//
+	// FIELDS
+	//
+	private final	String		name;
+	private final	long[]		buckets		= new long[64 * SUB_BUCKETS];
+	private			long		count;
+	private			long		max;
+
+	/**
+	 * Creates empty stats.
+	 * @param	name	the name of the kind of event, for reports.
+	 */
+	LatencyStats(String name)
+	{
+		this.name	= name;
+	}
+
+	//********************
+	// PACKAGE METHODS
+	//********************
+
+	long	getCount()				{ return count;	}
+
+	/**
+	 * Records the handling time of an event.
+	 * @param	nanos	the time taken, in nanoseconds.
+	 */
+	void record(long nanos)
+	{
+		if (nanos < 0)
+			nanos	= 0;
+		buckets[bucketOf(nanos)]++;
+		count++;
+		if (nanos > max)
+			max	= nanos;
+	}
+
+	/**
+	 * Removes all the recorded times.
+	 */
+	void clear()
+	{
+		java.util.Arrays.fill(buckets, 0);
+		count	= 0;
+		max		= 0;
+	}
+
+	/**
+	 * Returns the time within which the given fraction of the events was handled.
+	 * @param	fraction	the fraction of the events, from 0 to 1 (e.g. 0.99 for the 99th percentile).
+	 * @return	the time in nanoseconds (the upper limit of the bucket containing the percentile);
+	 *			0 if no time was recorded.
+	 */
+	long percentile(double fraction)
+	{
+		if (count == 0)
+			return 0;
+		long	target	= Math.max(1, (long)Math.ceil(count * fraction));
+		long	seen	= 0;
+		for (int i = 0; i < buckets.length; i++)
+		{
+			seen	+= buckets[i];
+			if (seen >= target)
+				return Math.min(bucketLimit(i), max);
+		}
+		return max;
+	}
+
+	/**
+	 * Returns a printable summary of the stats.
+	 * @return	the number of events and the main percentiles of their handling times, in microseconds.
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("%s: %d events, p50 %.1f us, p90 %.1f us, p99 %.1f us, max %.1f us",
+				name, count, percentile(0.50) / 1000.0, percentile(0.90) / 1000.0,
+				percentile(0.99) / 1000.0, max / 1000.0);
+	}
+
+	//********************
+	// PRIVATE HELPER METHODS
+	//********************
+
+	// Returns the bucket of a time: the position of its highest bit, followed by the next SUB_BITS bits.
+	private static int bucketOf(long nanos)
+	{
+		if (nanos < SUB_BUCKETS)
+			return (int)nanos;
+		int		shift	= 63 - Long.numberOfLeadingZeros(nanos) - SUB_BITS;
+		return ((shift + 1) << SUB_BITS) + (int)((nanos >>> shift) & (SUB_BUCKETS - 1));
+	}
+
+	// Returns the highest time falling into a bucket.
+	private static long bucketLimit(int bucket)
+	{
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+		int		shift	= (bucket >>> SUB_BITS) - 1;
+		long	base	= (long)(SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << shift;
+		return base + (1L << shift) - 1;
+	}
+}
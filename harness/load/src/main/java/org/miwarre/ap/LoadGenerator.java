@@ -0,0 +1,222 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	LoadGenerator.java - Replays a synthetic event load through the plug-in listener.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package org.miwarre.ap;
+
+import java.util.List;
+import java.util.Random;
+import net.risingworld.api.Server;
+import net.risingworld.api.events.Event;
+import net.risingworld.api.events.player.PlayerEvent;
+import net.risingworld.api.events.player.world.PlayerChangeObjectStatusEvent;
+import net.risingworld.api.events.player.world.PlayerDestroyBlockEvent;
+import net.risingworld.api.events.player.world.PlayerDestroyTerrainEvent;
+import net.risingworld.api.events.player.world.PlayerPlaceBlockEvent;
+import net.risingworld.api.events.player.world.PlayerPlaceBlueprintEvent;
+import net.risingworld.api.events.player.world.PlayerPlaceConstructionEvent;
+import net.risingworld.api.events.player.world.PlayerPlaceObjectEvent;
+import net.risingworld.api.objects.Player;
+import net.risingworld.api.utils.BoundingInformation;
+import net.risingworld.api.utils.Definitions.ObjectDefinition;
+import net.risingworld.api.utils.Utils.ChunkUtils;
+import net.risingworld.api.utils.Vector3f;
+import net.risingworld.api.utils.Vector3i;
+
+/**
+ * Replays a stream of synthetic events through the server event dispatch,
+ * and thus through ListenerPlayer, on a synthetic world (see SyntheticWorld),
+ * and reports the percentiles of the time taken by each kind of event.
+ * <p>Simulated players walk around, crossing area borders (area enter / leave
+ * events), build (block and terrain events), interact with objects (object
+ * and construction events) and place blueprints. A first quarter of the events
+ * is replayed to warm the JIT up and is not reported.
+ * <p>Usage: LoadGenerator [areas [overlap [players [events [eventPos]]]]],
+ * eventPos being the setting of the same name (0, 1 or 2).
+ */
+public class LoadGenerator
+{
+	//
+	// CONSTANTS
+	//
+	static final	int		DEF_AREAS		= 10000;
+	static final	float	DEF_OVERLAP		= 2.0f;
+	static final	int		DEF_PLAYERS		= 16;
+	static final	int		DEF_EVENTS		= 200000;
+	static final	int		BUILD_RANGE		= 8;		// the max distance of built blocks from the player
+	static final	int		MOVE_STEP		= 4;		// the max distance of a move
+	static final	int		MAX_BOX_SIDE	= 64;		// the max side of blueprints
+	static final	long	SEED			= 0x41726561L;
+
+	//
+	// FIELDS
+	//
+	private final	SyntheticWorld	world;
+	private final	Server			server;
+	private final	Random			rnd;
+	private final	Player[]		players;
+	private final	LatencyStats	blockStats		= new LatencyStats("Block events");
+	private final	LatencyStats	objectStats		= new LatencyStats("Object events");
+	private final	LatencyStats	blueprintStats	= new LatencyStats("Blueprint events");
+	private final	LatencyStats	areaStats		= new LatencyStats("Area enter/leave");
+	private			long			numCancelled;
+
+	LoadGenerator(SyntheticWorld world, int numPlayers)
+	{
+		this.world	= world;
+		server		= world.getServer();
+		rnd			= world.getRandom();
+		players		= new Player[numPlayers];
+		for (int i = 0; i < numPlayers; i++)
+			players[i]	= world.connectPlayer();
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		int		numAreas	= args.length > 0 ? Integer.parseInt(args[0]) : DEF_AREAS;
+		float	overlap		= args.length > 1 ? Float.parseFloat(args[1]) : DEF_OVERLAP;
+		int		numPlayers	= args.length > 2 ? Integer.parseInt(args[2]) : DEF_PLAYERS;
+		int		numEvents	= args.length > 3 ? Integer.parseInt(args[3]) : DEF_EVENTS;
+		SyntheticWorld	world	= new SyntheticWorld(numAreas, overlap, numPlayers, SEED);
+		try
+		{
+			if (args.length > 4)
+				AreaProtection.eventPos	= Integer.parseInt(args[4]);
+			LoadGenerator	load	= new LoadGenerator(world, numPlayers);
+			load.run(numEvents / 4);
+			load.clear();
+			long	startTime	= System.nanoTime();
+			load.run(numEvents);
+			double	seconds		= (System.nanoTime() - startTime) / 1e9;
+			System.out.println(String.format("AP load: %d events on %d areas (overlap %.1f, eventPos %d) "
+					+ "by %d players in %.2f s (%.0f events/s), %d cancelled", numEvents, numAreas, overlap,
+					AreaProtection.eventPos, numPlayers, seconds, numEvents / seconds, load.numCancelled));
+			for (String line : load.report())
+				System.out.println(line);
+		}
+		finally
+		{
+			world.close();
+		}
+	}
+
+	//********************
+	// PACKAGE METHODS
+	//********************
+
+	/**
+	 * Replays a number of random events by random players.
+	 * @param	numEvents	the number of events.
+	 */
+	void run(int numEvents)
+	{
+		for (int i = 0; i < numEvents; i++)
+		{
+			Player		player	= players[rnd.nextInt(players.length)];
+			Vector3f	pos		= player.getPosition();
+			int			kind	= rnd.nextInt(100);
+			if (kind < 20)					// moves, possibly across area borders
+			{
+				Vector3f	to	= new Vector3f(pos.x + rnd.nextInt(MOVE_STEP * 2 + 1) - MOVE_STEP, pos.y,
+						pos.z + rnd.nextInt(MOVE_STEP * 2 + 1) - MOVE_STEP);
+				List<PlayerEvent>	events	= world.movePlayer(player, to);
+				for (PlayerEvent event : events)
+					trigger(event, areaStats);
+			}
+			else if (kind < 85)				// block and terrain events around the player
+			{
+				Vector3f	block	= near(pos, BUILD_RANGE);
+				Vector3i	chunk	= new Vector3i(ChunkUtils.getChunkPositionX(block.x),
+						ChunkUtils.getChunkPositionY(block.y), ChunkUtils.getChunkPositionZ(block.z));
+				Vector3i	inChunk	= new Vector3i(ChunkUtils.getBlockPositionX(block.x, chunk.x),
+						ChunkUtils.getBlockPositionY(block.y, chunk.y), ChunkUtils.getBlockPositionZ(block.z, chunk.z));
+				Event		event;
+				if (kind < 50)
+					event	= new PlayerPlaceBlockEvent(player, chunk, inChunk);
+				else if (kind < 75)
+					event	= new PlayerDestroyBlockEvent(player, chunk, inChunk);
+				else
+					event	= new PlayerDestroyTerrainEvent(player, chunk, inChunk);
+				trigger(event, blockStats);
+			}
+			else if (kind < 99)				// object and construction events around the player
+			{
+				Vector3f	point	= near(pos, BUILD_RANGE);
+				Event		event;
+				if (kind < 90)
+					event	= new PlayerPlaceObjectEvent(player, point);
+				else if (kind < 95)
+					event	= new PlayerPlaceConstructionEvent(player, point);
+				else
+					event	= new PlayerChangeObjectStatusEvent(player,
+							new ObjectDefinition(ObjectDefinition.Kind.Door), point);
+				trigger(event, objectStats);
+			}
+			else							// blueprints next to the player
+			{
+				trigger(new PlayerPlaceBlueprintEvent(player, new BoundingInformation(near(pos, BUILD_RANGE),
+						rnd.nextInt(MAX_BOX_SIDE / 2) + 0.5f, rnd.nextInt(MAX_BOX_SIDE / 2) + 0.5f,
+						rnd.nextInt(MAX_BOX_SIDE / 2) + 0.5f)), blueprintStats);
+			}
+		}
+	}
+
+	/**
+	 * Removes all the recorded times.
+	 */
+	void clear()
+	{
+		blockStats.clear();
+		objectStats.clear();
+		blueprintStats.clear();
+		areaStats.clear();
+		numCancelled	= 0;
+	}
+
+	/**
+	 * Returns the percentiles of each kind of event, as printable lines.
+	 * @return	the lines.
+	 */
+	String[] report()
+	{
+		return new String[] { blockStats.toString(), objectStats.toString(),
+				blueprintStats.toString(), areaStats.toString() };
+	}
+
+	//********************
+	// PRIVATE HELPER METHODS
+	//********************
+
+	// Triggers an event and records the time taken to handle it.
+	private void trigger(Event event, LatencyStats stats)
+	{
+		long	startTime	= System.nanoTime();
+		server.triggerEvent(event);
+		stats.record(System.nanoTime() - startTime);
+		if (event.isCancelled())
+			numCancelled++;
+	}
+
+	// Returns a random point within range blocks of pos.
+	private Vector3f near(Vector3f pos, int range)
+	{
+		return new Vector3f(pos.x + rnd.nextInt(range * 2 + 1) - range, pos.y + rnd.nextInt(range * 2 + 1) - range,
+				pos.z + rnd.nextInt(range * 2 + 1) - range);
+	}
+}
@@ -0,0 +1,93 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	LatencyStatsTest.java - Checks the percentiles reported by LatencyStats.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package org.miwarre.ap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class LatencyStatsTest
+{
+	// the max relative error of the reported percentiles
+	private static final	double	TOLERANCE	= 0.01;
+
+	@Test
+	public void emptyStatsReportZero()
+	{
+		LatencyStats	stats	= new LatencyStats("empty");
+		assertEquals(0, stats.percentile(0.5));
+		assertEquals(0, stats.getCount());
+	}
+
+	@Test
+	public void uniformSeriesGivesKnownPercentiles()
+	{
+		// 1 to 100000 us, once each
+		LatencyStats	stats	= new LatencyStats("uniform");
+		for (long us = 1; us <= 100000; us++)
+			stats.record(us * 1000);
+		assertEquals(100000, stats.getCount());
+		assertPercentile(stats, 0.50, 50000 * 1000L);
+		assertPercentile(stats, 0.90, 90000 * 1000L);
+		assertPercentile(stats, 0.99, 99000 * 1000L);
+		assertEquals(100000 * 1000L, stats.percentile(1.0));
+	}
+
+	@Test
+	public void shuffledSeriesGivesTheSamePercentiles()
+	{
+		// the same series, recorded in a scrambled order
+		LatencyStats	stats	= new LatencyStats("scrambled");
+		for (long i = 0; i < 100000; i++)
+			stats.record(((i * 7919) % 100000 + 1) * 1000);
+		assertPercentile(stats, 0.90, 90000 * 1000L);
+	}
+
+	@Test
+	public void smallTimesAreExact()
+	{
+		LatencyStats	stats	= new LatencyStats("small");
+		for (long ns = 1; ns <= 100; ns++)
+			stats.record(ns);
+		assertEquals(50, stats.percentile(0.50));
+		assertEquals(90, stats.percentile(0.90));
+		assertEquals(100, stats.percentile(1.0));
+	}
+
+	@Test
+	public void clearRemovesAllTimes()
+	{
+		LatencyStats	stats	= new LatencyStats("cleared");
+		stats.record(12345);
+		stats.clear();
+		assertEquals(0, stats.getCount());
+		assertEquals(0, stats.percentile(0.99));
+	}
+
+	// Checks a percentile is not below the actual value and within TOLERANCE above it.
+	private static void assertPercentile(LatencyStats stats, double fraction, long expected)
+	{
+		long	actual	= stats.percentile(fraction);
+		assertTrue("p" + (int)(fraction * 100) + " = " + actual + " < " + expected, actual >= expected);
+		assertTrue("p" + (int)(fraction * 100) + " = " + actual + " too far above " + expected,
+				actual <= expected * (1 + TOLERANCE));
+	}
+}
@@ -0,0 +1,85 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	Plugin.java - Stub of the Rising World plug-in base class, for the off-game harness.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package net.risingworld.api;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import net.risingworld.api.database.Database;
+import net.risingworld.api.events.Listener;
+
+/**
+ * The base class of the plug-ins, as far as Area Protection uses it.
+ * <p>The game sets up the plug-in environment itself; here it is given by
+ * the harness with setUp() before calling onEnable().
+ */
+public abstract class Plugin
+{
+	private			String		path;
+	private			Server		server;
+	private			World		world;
+	private			Database	worldDatabase;
+
+	public abstract void onEnable();
+	public abstract void onDisable();
+
+	/**
+	 * Stub only: sets the environment the plug-in runs in.
+	 * @param	path	the plug-in folder, with the plug-in assets (settings, locale, presets...).
+	 * @param	server	the server the plug-in runs on.
+	 * @param	world	the world the plug-in runs in.
+	 */
+	public void setUp(String path, Server server, World world)
+	{
+		this.path	= path;
+		this.server	= server;
+		this.world	= world;
+	}
+
+	public String	getPath()		{	return path;	}
+	public Server	getServer()		{	return server;	}
+	public World	getWorld()		{	return world;	}
+
+	public Database getSQLiteConnection(String path)
+	{
+		try {
+			return new Database(DriverManager.getConnection("jdbc:sqlite:" + path));
+		} catch (SQLException e) {
+			throw new IllegalStateException("cannot open " + path, e);
+		}
+	}
+
+	public Database getWorldDatabase()
+	{
+		if (worldDatabase == null)
+			worldDatabase	= getSQLiteConnection(world.getDatabasePath());
+		return worldDatabase;
+	}
+
+	public void registerEventListener(Listener listener)
+	{
+		server.addListener(listener);
+	}
+
+	public void unregisterEventListener(Listener listener)
+	{
+		server.removeListener(listener);
+	}
+}
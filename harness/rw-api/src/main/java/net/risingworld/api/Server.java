@@ -0,0 +1,201 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	Server.java - Stub of the Rising World server, for the off-game harness.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package net.risingworld.api;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import net.risingworld.api.events.Event;
+import net.risingworld.api.events.EventMethod;
+import net.risingworld.api.events.Listener;
+import net.risingworld.api.objects.Player;
+import net.risingworld.api.utils.Area;
+
+/**
+ * The server: the connected players, the world areas and the event listeners
+ * of the plug-ins.
+ * <p>Events are dispatched as by the game: each event is passed, in order of
+ * registration, to the @EventMethod methods of the registered listeners whose
+ * parameter type accepts it.
+ */
+public class Server
+{
+	public enum Type
+	{
+		Singleplayer, LocalServer, DedicatedServer
+	}
+
+	private final	Type					type;
+	private final	Map<Long,Player>		players		= new LinkedHashMap<>();
+	private final	List<Area>				areas		= new ArrayList<>();
+	private final	List<Listener>			listeners	= new ArrayList<>();
+	// the handlers of each event class, computed at its first event after any listener change
+	private final	Map<Class<?>,List<Handler>>	handlers	= new HashMap<>();
+
+	/**
+	 * Stub only: creates a server with no players.
+	 * @param	type	the kind of server.
+	 */
+	public Server(Type type)
+	{
+		this.type	= type;
+	}
+
+	public Type		getType()	{	return type;	}
+
+	public Collection<Player> getAllPlayers()
+	{
+		return Collections.unmodifiableCollection(players.values());
+	}
+
+	public Player getPlayer(long uid)
+	{
+		return players.get(uid);
+	}
+
+	public void addArea(Area area)
+	{
+		areas.add(area);
+	}
+
+	public void removeArea(Area area)
+	{
+		areas.remove(area);
+	}
+
+	//********************
+	// STUB ONLY
+	//********************
+
+	/**
+	 * Adds a player to the connected ones.
+	 * @param	player	the player.
+	 */
+	public void addPlayer(Player player)
+	{
+		players.put(player.getUID(), player);
+	}
+
+	/**
+	 * Removes a player from the connected ones.
+	 * @param	player	the player.
+	 */
+	public void removePlayer(Player player)
+	{
+		players.remove(player.getUID());
+	}
+
+	/**
+	 * Returns the areas added to the world.
+	 * @return	the areas, as an unmodifiable list.
+	 */
+	public List<Area> getAreas()
+	{
+		return Collections.unmodifiableList(areas);
+	}
+
+	/**
+	 * Passes an event to all the listener methods accepting it; the caller
+	 * can then check whether a listener cancelled it.
+	 * @param	event	the event.
+	 */
+	public void triggerEvent(Event event)
+	{
+		List<Handler>	eventHandlers	= handlers.get(event.getClass());
+		if (eventHandlers == null)
+		{
+			eventHandlers	= findHandlers(event.getClass());
+			handlers.put(event.getClass(), eventHandlers);
+		}
+		for (Handler handler : eventHandlers)
+			handler.invoke(event);
+	}
+
+	void addListener(Listener listener)
+	{
+		if (!listeners.contains(listener))
+			listeners.add(listener);
+		handlers.clear();
+	}
+
+	void removeListener(Listener listener)
+	{
+		listeners.remove(listener);
+		handlers.clear();
+	}
+
+	//********************
+	// PRIVATE HELPER METHODS
+	//********************
+
+	// Returns the listener methods accepting an event class.
+	private List<Handler> findHandlers(Class<?> eventClass)
+	{
+		List<Handler>	found	= new ArrayList<>();
+		for (Listener listener : listeners)
+			for (Method method : listener.getClass().getMethods())
+				if (method.isAnnotationPresent(EventMethod.class) && method.getParameterCount() == 1
+						&& method.getParameterTypes()[0].isAssignableFrom(eventClass))
+				{
+					method.setAccessible(true);		// listener classes need not be public
+					found.add(new Handler(listener, method));
+				}
+		return found;
+	}
+
+	/**
+	 * A listener method receiving events.
+	 */
+	private static class Handler
+	{
+		final	Listener	listener;
+		final	Method		method;
+
+		Handler(Listener listener, Method method)
+		{
+			this.listener	= listener;
+			this.method		= method;
+		}
+
+		void invoke(Event event)
+		{
+			try {
+				method.invoke(listener, event);
+			} catch (InvocationTargetException e) {
+				// what the listener threw is thrown to the caller, to surface plug-in errors
+				Throwable	cause	= e.getCause();
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException)cause;
+				if (cause instanceof Error)
+					throw (Error)cause;
+				throw new IllegalStateException(cause);
+			} catch (IllegalAccessException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,44 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	World.java - Stub of the Rising World world, for the off-game harness.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package net.risingworld.api;
+
+/**
+ * The world the plug-in runs in: its name and, stub only, the file of its DB.
+ */
+public class World
+{
+	private final	String		name;
+	private final	String		dbPath;
+
+	/**
+	 * Stub only: creates a world.
+	 * @param	name	the world name.
+	 * @param	dbPath	the path of the world DB file, which is created if missing.
+	 */
+	public World(String name, String dbPath)
+	{
+		this.name	= name;
+		this.dbPath	= dbPath;
+	}
+
+	public String	getName()			{	return name;	}
+	public String	getDatabasePath()	{	return dbPath;	}
+}
@@ -0,0 +1,77 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	Database.java - Stub of the Rising World SQLite database, for the off-game harness.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package net.risingworld.api.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A connection to an SQLite DB file.
+ */
+public class Database
+{
+	private final	Connection	conn;
+
+	/**
+	 * Stub only: wraps an open JDBC connection.
+	 * @param	conn	the connection.
+	 */
+	public Database(Connection conn)
+	{
+		this.conn	= conn;
+	}
+
+	public Connection getConnection()
+	{
+		return conn;
+	}
+
+	public void execute(String sql)
+	{
+		try (Statement stmt = conn.createStatement())
+		{
+			stmt.execute(sql);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Runs a query; the statement is closed with the returned result set.
+	 */
+	public ResultSet executeQuery(String sql) throws SQLException
+	{
+		Statement	stmt	= conn.createStatement();
+		stmt.closeOnCompletion();
+		return stmt.executeQuery(sql);
+	}
+
+	public void close()
+	{
+		try {
+			conn.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+}
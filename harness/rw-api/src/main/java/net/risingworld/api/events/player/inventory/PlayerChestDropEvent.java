@@ -0,0 +1,33 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	PlayerChestDropEvent.java - Stub of the Rising World PlayerChestDropEvent, for the off-game harness.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package net.risingworld.api.events.player.inventory;
+
+import net.risingworld.api.events.Cancellable;
+import net.risingworld.api.events.player.PlayerEvent;
+import net.risingworld.api.objects.Player;
+
+public class PlayerChestDropEvent extends PlayerEvent implements Cancellable
+{
+	public PlayerChestDropEvent(Player player)
+	{
+		super(player);
+	}
+}
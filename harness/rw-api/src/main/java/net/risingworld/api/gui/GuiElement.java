@@ -0,0 +1,80 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	GuiElement.java - Stub of the Rising World GUI element, for the off-game harness.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package net.risingworld.api.gui;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A GUI element: it only keeps its geometry and children, as nothing is displayed.
+ */
+public class GuiElement
+{
+	private			float				x, y, width, height;
+	private			boolean				relative;
+	private			PivotPosition		pivot		= PivotPosition.BottomLeft;
+	private			int					colour;
+	private			int					borderColour;
+	private			float				borderThickness;
+	private			boolean				visible		= true;
+	private			boolean				clickable	= false;
+	private			GuiElement			parent;
+	private final	List<GuiElement>	children	= new ArrayList<>();
+
+	public void		setPosition(float x, float y, boolean relative)	{	this.x = x; this.y = y; this.relative = relative;	}
+	public float	getPositionX()									{	return x;					}
+	public float	getPositionY()									{	return y;					}
+	public boolean	isRelativePosition()							{	return relative;			}
+	public void		setSize(float width, float height, boolean relative)	{	this.width = width; this.height = height;	}
+	public float	getWidth()										{	return width;				}
+	public float	getHeight()										{	return height;				}
+	public void		setPivot(PivotPosition pivot)					{	this.pivot = pivot;			}
+	public PivotPosition getPivot()									{	return pivot;				}
+	public void		setColor(int colour)							{	this.colour = colour;		}
+	public int		getColor()										{	return colour;				}
+	public void		setBorderColor(int colour)						{	borderColour = colour;		}
+	public int		getBorderColor()								{	return borderColour;		}
+	public void		setBorderThickness(float thickness, boolean relative)	{	borderThickness = thickness;	}
+	public float	getBorderThickness()							{	return borderThickness;		}
+	public void		setVisible(boolean visible)						{	this.visible = visible;		}
+	public boolean	isVisible()										{	return visible;				}
+	public void		setClickable(boolean clickable)					{	this.clickable = clickable;	}
+	public boolean	isClickable()									{	return clickable;			}
+	public GuiElement getParent()									{	return parent;				}
+
+	public void addChild(GuiElement child)
+	{
+		children.add(child);
+		child.parent	= this;
+	}
+
+	public void removeChild(GuiElement child)
+	{
+		if (children.remove(child))
+			child.parent	= null;
+	}
+
+	public void removeFromParent()
+	{
+		if (parent != null)
+			parent.removeChild(this);
+	}
+}
@@ -0,0 +1,37 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	GuiImage.java - Stub of the Rising World GUI image, for the off-game harness.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package net.risingworld.api.gui;
+
+import net.risingworld.api.utils.ImageInformation;
+
+public class GuiImage extends GuiElement
+{
+	private			ImageInformation	image;
+
+	public GuiImage(float x, float y, boolean relativePosition, float width, float height, boolean relativeSize)
+	{
+		setPosition(x, y, relativePosition);
+		setSize(width, height, relativeSize);
+	}
+
+	public void				setImage(ImageInformation image)	{	this.image = image;	}
+	public ImageInformation	getImage()							{	return image;		}
+}
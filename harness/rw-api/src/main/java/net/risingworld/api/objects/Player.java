@@ -0,0 +1,111 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	Player.java - Stub of the Rising World player, for the off-game harness.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package net.risingworld.api.objects;
+
+import java.util.HashMap;
+import java.util.Map;
+import net.risingworld.api.callbacks.Callback;
+import net.risingworld.api.gui.GuiElement;
+import net.risingworld.api.utils.Area;
+import net.risingworld.api.utils.Vector3f;
+import net.risingworld.api.worldelements.WorldElement;
+
+/**
+ * A player: identity, position and plug-in attributes; the GUI and world
+ * elements are accepted and ignored, as nothing is displayed.
+ */
+public class Player
+{
+	private final	int					dbId;
+	private final	long				uid;
+	private final	String				name;
+	private final	Map<String,Object>	attributes	= new HashMap<>();
+	private			String				permissionGroup	= "default";
+	private			Vector3f			position	= new Vector3f();
+	private			boolean				admin		= false;
+	private			boolean				connected	= true;
+	private			boolean				flying		= false;
+
+	/**
+	 * Stub only: creates a connected player.
+	 * @param	dbId	the player DB id.
+	 * @param	uid		the player unique id.
+	 * @param	name	the player name.
+	 */
+	public Player(int dbId, long uid, String name)
+	{
+		this.dbId	= dbId;
+		this.uid	= uid;
+		this.name	= name;
+	}
+
+	public int		getDbID()				{	return dbId;			}
+	public long		getUID()				{	return uid;				}
+	public String	getName()				{	return name;			}
+	public String	getPermissionGroup()	{	return permissionGroup;	}
+	public Vector3f	getPosition()			{	return position;		}
+	public boolean	isAdmin()				{	return admin;			}
+	public boolean	isConnected()			{	return connected;		}
+	public boolean	isFlying()				{	return flying;			}
+
+	public void		setPosition(Vector3f position)	{	this.position = position;	}
+	public void		setFlying(boolean flying)		{	this.flying = flying;		}
+
+	public Object getAttribute(String key)
+	{
+		return attributes.get(key);
+	}
+
+	public void setAttribute(String key, Object value)
+	{
+		attributes.put(key, value);
+	}
+
+	public void deleteAttribute(String key)
+	{
+		attributes.remove(key);
+	}
+
+	public boolean hasAttribute(String key)
+	{
+		return attributes.containsKey(key);
+	}
+
+	public void sendTextMessage(String text)					{	}
+	public void addGuiElement(GuiElement element)				{	}
+	public void removeGuiElement(GuiElement element)			{	}
+	public void addWorldElement(WorldElement element)			{	}
+	public void removeWorldElement(WorldElement element)		{	}
+	public void setMouseCursorVisible(boolean visible)			{	}
+	public void setListenForKeyInput(boolean listen)			{	}
+	public void registerKeys(int... keys)						{	}
+	public void enableAreaSelectionTool()						{	}
+	public void disableAreaSelectionTool()						{	}
+	public void getAreaSelectionData(Callback<Area> callback)	{	}
+
+	//********************
+	// STUB ONLY
+	//********************
+
+	public void		setAdmin(boolean admin)					{	this.admin = admin;				}
+	public void		setConnected(boolean connected)			{	this.connected = connected;		}
+	public void		setPermissionGroup(String group)		{	this.permissionGroup = group;	}
+}
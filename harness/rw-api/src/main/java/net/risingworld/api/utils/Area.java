@@ -0,0 +1,95 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	Area.java - Stub of the Rising World area, for the off-game harness.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package net.risingworld.api.utils;
+
+import net.risingworld.api.utils.Utils.ChunkUtils;
+
+/**
+ * A box of world blocks, given by the chunk and block positions of its
+ * starting and ending blocks (both included).
+ */
+public class Area
+{
+	private			Vector3i	startChunk, startBlock, endChunk, endBlock;
+
+	public Area()
+	{
+		this(new Vector3i(), new Vector3i(), new Vector3i(), new Vector3i());
+	}
+
+	public Area(Vector3i startChunk, Vector3i startBlock, Vector3i endChunk, Vector3i endBlock)
+	{
+		this.startChunk	= startChunk;
+		this.startBlock	= startBlock;
+		this.endChunk	= endChunk;
+		this.endBlock	= endBlock;
+	}
+
+	public Area(Vector3f from, Vector3f to)
+	{
+		startChunk	= chunkOf(from);
+		startBlock	= blockOf(from, startChunk);
+		endChunk	= chunkOf(to);
+		endBlock	= blockOf(to, endChunk);
+	}
+
+	public Vector3i	getStartChunkPosition()	{	return startChunk;	}
+	public Vector3i	getStartBlockPosition()	{	return startBlock;	}
+	public Vector3i	getEndChunkPosition()	{	return endChunk;	}
+	public Vector3i	getEndBlockPosition()	{	return endBlock;	}
+
+	/**
+	 * Swaps the coordinates of the starting and ending blocks as needed for
+	 * the starting block to have the lowest ones.
+	 */
+	public void rearrange()
+	{
+		Vector3f	from	= ChunkUtils.getGlobalPosition(startChunk, startBlock);
+		Vector3f	to		= ChunkUtils.getGlobalPosition(endChunk, endBlock);
+		Vector3f	min		= new Vector3f(Math.min(from.x, to.x), Math.min(from.y, to.y), Math.min(from.z, to.z));
+		Vector3f	max		= new Vector3f(Math.max(from.x, to.x), Math.max(from.y, to.y), Math.max(from.z, to.z));
+		startChunk	= chunkOf(min);
+		startBlock	= blockOf(min, startChunk);
+		endChunk	= chunkOf(max);
+		endBlock	= blockOf(max, endChunk);
+	}
+
+	public boolean isPointInArea(Vector3f point)
+	{
+		Vector3f	from	= ChunkUtils.getGlobalPosition(startChunk, startBlock);
+		Vector3f	to		= ChunkUtils.getGlobalPosition(endChunk, endBlock);
+		return point.x >= Math.min(from.x, to.x) && point.x < Math.max(from.x, to.x) + 1
+				&& point.y >= Math.min(from.y, to.y) && point.y < Math.max(from.y, to.y) + 1
+				&& point.z >= Math.min(from.z, to.z) && point.z < Math.max(from.z, to.z) + 1;
+	}
+
+	private static Vector3i chunkOf(Vector3f pos)
+	{
+		return new Vector3i(ChunkUtils.getChunkPositionX(pos.x), ChunkUtils.getChunkPositionY(pos.y),
+				ChunkUtils.getChunkPositionZ(pos.z));
+	}
+
+	private static Vector3i blockOf(Vector3f pos, Vector3i chunk)
+	{
+		return new Vector3i(ChunkUtils.getBlockPositionX(pos.x, chunk.x), ChunkUtils.getBlockPositionY(pos.y, chunk.y),
+				ChunkUtils.getBlockPositionZ(pos.z, chunk.z));
+	}
+}
@@ -0,0 +1,43 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	BoundingInformation.java - Stub of the Rising World bounding box, for the off-game harness.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package net.risingworld.api.utils;
+
+/**
+ * A box given by its centre and its half extents along each axis.
+ */
+public class BoundingInformation
+{
+	private final	Vector3f	center;
+	private final	float		xExtent, yExtent, zExtent;
+
+	public BoundingInformation(Vector3f center, float xExtent, float yExtent, float zExtent)
+	{
+		this.center		= center;
+		this.xExtent	= xExtent;
+		this.yExtent	= yExtent;
+		this.zExtent	= zExtent;
+	}
+
+	public Vector3f	getCenter()		{	return center;	}
+	public float	getXExtent()	{	return xExtent;	}
+	public float	getYExtent()	{	return yExtent;	}
+	public float	getZExtent()	{	return zExtent;	}
+}
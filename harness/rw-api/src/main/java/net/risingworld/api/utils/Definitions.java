@@ -0,0 +1,44 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	Definitions.java - Stub of the Rising World item definitions, for the off-game harness.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package net.risingworld.api.utils;
+
+public class Definitions
+{
+	public static class ObjectDefinition
+	{
+		public enum Kind
+		{
+			Door, Furnace, Chest, Other
+		}
+
+		private final	Kind	kind;
+
+		/**
+		 * Stub only: creates the definition of an object of the given kind.
+		 * @param	kind	the kind of object.
+		 */
+		public ObjectDefinition(Kind kind)	{	this.kind = kind;			}
+
+		public boolean	isDoor()			{	return kind == Kind.Door;		}
+		public boolean	isFurnace()			{	return kind == Kind.Furnace;	}
+		public boolean	isChest()			{	return kind == Kind.Chest;		}
+	}
+}
@@ -0,0 +1,35 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	KeyInput.java - Stub of the Rising World key codes, for the off-game harness.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package net.risingworld.api.utils;
+
+public class KeyInput
+{
+	public static final	int		KEY_ESCAPE		= 1;
+	public static final	int		KEY_SUBTRACT	= 74;
+	public static final	int		KEY_ADD			= 78;
+	public static final	int		KEY_RETURN		= 28;
+	public static final	int		KEY_UP			= 200;
+	public static final	int		KEY_PGUP		= 201;
+	public static final	int		KEY_LEFT		= 203;
+	public static final	int		KEY_RIGHT		= 205;
+	public static final	int		KEY_DOWN		= 208;
+	public static final	int		KEY_PGDN		= 209;
+}
@@ -0,0 +1,62 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	Utils.java - Stub of the Rising World utilities, for the off-game harness.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package net.risingworld.api.utils;
+
+import java.util.Random;
+
+public class Utils
+{
+	/**
+	 * Conversions between global positions and chunk/block positions,
+	 * for chunks of 32 x 64 x 32 blocks.
+	 */
+	public static class ChunkUtils
+	{
+		public static final	int		CHUNK_SIZE_X	= 32;
+		public static final	int		CHUNK_SIZE_Y	= 64;
+		public static final	int		CHUNK_SIZE_Z	= 32;
+
+		public static Vector3f getGlobalPosition(Vector3i chunkPos, Vector3i blockPos)
+		{
+			return new Vector3f(chunkPos.x * CHUNK_SIZE_X + blockPos.x,
+					chunkPos.y * CHUNK_SIZE_Y + blockPos.y, chunkPos.z * CHUNK_SIZE_Z + blockPos.z);
+		}
+
+		public static int getChunkPositionX(float x)	{	return Math.floorDiv((int)Math.floor(x), CHUNK_SIZE_X);	}
+		public static int getChunkPositionY(float y)	{	return Math.floorDiv((int)Math.floor(y), CHUNK_SIZE_Y);	}
+		public static int getChunkPositionZ(float z)	{	return Math.floorDiv((int)Math.floor(z), CHUNK_SIZE_Z);	}
+
+		public static int getBlockPositionX(float x, int chunkX)	{	return (int)Math.floor(x) - chunkX * CHUNK_SIZE_X;	}
+		public static int getBlockPositionY(float y, int chunkY)	{	return (int)Math.floor(y) - chunkY * CHUNK_SIZE_Y;	}
+		public static int getBlockPositionZ(float z, int chunkZ)	{	return (int)Math.floor(z) - chunkZ * CHUNK_SIZE_Z;	}
+	}
+
+	public static class GeneralUtils
+	{
+		private static final	Random	random	= new Random(1);
+
+		public static int nextRandomColor(boolean opaque)
+		{
+			int		colour	= random.nextInt() << 8;
+			return opaque ? colour | 0xFF : colour | random.nextInt(256);
+		}
+	}
+}
@@ -0,0 +1,45 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	Vector3f.java - Stub of the Rising World float vector, for the off-game harness.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package net.risingworld.api.utils;
+
+public class Vector3f
+{
+	public			float	x, y, z;
+
+	public Vector3f()								{	}
+	public Vector3f(float x, float y, float z)		{	this.x = x; this.y = y; this.z = z;	}
+
+	public Vector3f add(float dx, float dy, float dz)
+	{
+		return new Vector3f(x + dx, y + dy, z + dz);
+	}
+
+	public Vector3f subtract(float dx, float dy, float dz)
+	{
+		return new Vector3f(x - dx, y - dy, z - dz);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "(" + x + ", " + y + ", " + z + ")";
+	}
+}
@@ -0,0 +1,50 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	Vector3i.java - Stub of the Rising World int vector, for the off-game harness.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package net.risingworld.api.utils;
+
+public class Vector3i
+{
+	public			int		x, y, z;
+
+	public Vector3i()								{	}
+	public Vector3i(int x, int y, int z)			{	this.x = x; this.y = y; this.z = z;	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (!(obj instanceof Vector3i))
+			return false;
+		Vector3i	other	= (Vector3i)obj;
+		return x == other.x && y == other.y && z == other.z;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return (x * 31 + y) * 31 + z;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "(" + x + ", " + y + ", " + z + ")";
+	}
+}
@@ -0,0 +1,270 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	SyntheticWorld.java - Runs the plug-in over a synthetic world, on the API stubs.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package org.miwarre.ap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+import net.risingworld.api.Server;
+import net.risingworld.api.World;
+import net.risingworld.api.events.player.PlayerConnectEvent;
+import net.risingworld.api.events.player.PlayerEnterAreaEvent;
+import net.risingworld.api.events.player.PlayerEvent;
+import net.risingworld.api.events.player.PlayerLeaveAreaEvent;
+import net.risingworld.api.objects.Player;
+import net.risingworld.api.utils.Area;
+import net.risingworld.api.utils.Vector3f;
+
+/**
+ * An instance of the plug-in enabled on a dedicated server over a synthetic
+ * world, with a given number of random areas and connected players.
+ * <p>The areas are scattered over a square world, sized for a mean distance
+ * between areas of SPACING blocks; their mean side is given as a fraction
+ * of SPACING (the overlap): below 1, areas seldom overlap; above 1, most
+ * points are in several areas. Each player has specific permissions for
+ * about one area in PLAYER_AREA_RATIO.
+ * <p>The areas are written to the plug-in DB and loaded by the plug-in at
+ * start-up, as in the game; as the plug-in keeps its data in static fields,
+ * only one world can be open at a time.
+ * <p>As the game server does, the world tracks the areas each player is in,
+ * to report the areas entered and left by player moves.
+ */
+public class SyntheticWorld
+{
+	//
+	// CONSTANTS
+	//
+	public static final	int		SPACING				= 64;	// the mean distance between areas, in blocks
+	public static final	int		MIN_Y				= -32;	// the lowest area bottom
+	public static final	int		MAX_Y				= 288;	// the highest area top
+	static final		int		PLAYER_AREA_RATIO	= 10;
+	static final		String	WORLD_NAME			= "synthetic";
+	static final		String[]	ASSETS			= { "settings.properties", "locale/messages_en.properties",
+			"presets/admin.preset", "presets/friend.preset", "presets/guest.preset", "presets/lockout.preset",
+			"presets/miner.preset", "presets/owner.preset", "presets/shopper.preset" };
+
+	//
+	// FIELDS
+	//
+	private final	Path			dir;		// the plug-in folder
+	private final	Server			server;
+	private final	AreaProtection	plugin;
+	private final	Random			rnd;
+	private final	int				side;		// the side of the world, in blocks
+	private final	List<Player>	players		= new ArrayList<>();
+	// the areas by SPACING x SPACING column, to track the areas players are in
+	private final	Map<Long,List<ProtArea>>	columns		= new HashMap<>();
+	private final	Map<Player,Set<ProtArea>>	inAreas		= new HashMap<>();
+
+	/**
+	 * Creates a world with random areas and enables the plug-in on it.
+	 * @param	numAreas	the number of areas.
+	 * @param	overlap		the mean side of the areas, as a fraction of SPACING.
+	 * @param	numPlayers	the number of players with specific area permissions.
+	 * @param	seed		the seed of the random values, for comparable runs.
+	 * @throws	IOException		if the plug-in folder cannot be created.
+	 * @throws	SQLException	if the areas cannot be written to the plug-in DB.
+	 */
+	public SyntheticWorld(int numAreas, float overlap, int numPlayers, long seed) throws IOException, SQLException
+	{
+		rnd		= new Random(seed);
+		side	= Math.max(1, (int)Math.sqrt(numAreas)) * SPACING;
+		dir		= Files.createTempDirectory("ap-world");
+		for (String asset : ASSETS)
+		{
+			Path	target	= dir.resolve(asset);
+			Files.createDirectories(target.getParent());
+			try (InputStream in = SyntheticWorld.class.getResourceAsStream("/ap-assets/" + asset))
+			{
+				Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		server	= new Server(Server.Type.DedicatedServer);
+		plugin	= new AreaProtection();
+		plugin.setUp(dir.toString(), server, new World(WORLD_NAME, dir.resolve("world.db").toString()));
+		// a first start-up creates the plug-in tables, which are then filled
+		// and loaded by a second start-up
+		plugin.onEnable();
+		plugin.onDisable();
+		writeAreas(numAreas, Math.max(1, (int)(SPACING * overlap)), numPlayers);
+		plugin.onEnable();
+		for (Area area : server.getAreas())
+		{
+			ProtArea	protArea	= (ProtArea)area;
+			for (int x = Math.floorDiv(protArea.minX, SPACING); x <= Math.floorDiv(protArea.maxX, SPACING); x++)
+				for (int z = Math.floorDiv(protArea.minZ, SPACING); z <= Math.floorDiv(protArea.maxZ, SPACING); z++)
+					columns.computeIfAbsent(columnKey(x, z), key -> new ArrayList<>()).add(protArea);
+		}
+	}
+
+	//********************
+	// PUBLIC METHODS
+	//********************
+
+	/**
+	 * Connects the next player, at a random position, and reports the areas
+	 * the player is in as entered; players are connected in order of DB id,
+	 * to have their area permissions.
+	 * @return	the connected player.
+	 */
+	public Player connectPlayer()
+	{
+		int		dbId	= players.size() + 1;
+		Player	player	= new Player(dbId, 1000000L + dbId, "player" + dbId);
+		players.add(player);
+		server.addPlayer(player);
+		inAreas.put(player, new HashSet<>());
+		server.triggerEvent(new PlayerConnectEvent(player, false));
+		for (PlayerEvent event : movePlayer(player, randomPoint()))
+			server.triggerEvent(event);
+		return player;
+	}
+
+	/**
+	 * Moves a player and returns the events for the areas left and entered
+	 * by the move, which the caller is expected to trigger.
+	 * @param	player	the player.
+	 * @param	to		the new position.
+	 * @return	the area leave events, followed by the area enter events.
+	 */
+	public List<PlayerEvent> movePlayer(Player player, Vector3f to)
+	{
+		player.setPosition(to);
+		Set<ProtArea>		oldAreas	= inAreas.get(player);
+		Set<ProtArea>		newAreas	= new HashSet<>();
+		List<ProtArea>		column		= columns.get(columnKey(Math.floorDiv((int)Math.floor(to.x), SPACING),
+				Math.floorDiv((int)Math.floor(to.z), SPACING)));
+		if (column != null)
+			for (ProtArea area : column)
+				if (area.isPointInArea(to))
+					newAreas.add(area);
+		List<PlayerEvent>	events		= new ArrayList<>();
+		for (ProtArea area : oldAreas)
+			if (!newAreas.contains(area))
+				events.add(new PlayerLeaveAreaEvent(player, area));
+		for (ProtArea area : newAreas)
+			if (!oldAreas.contains(area))
+				events.add(new PlayerEnterAreaEvent(player, area));
+		inAreas.put(player, newAreas);
+		return events;
+	}
+
+	/**
+	 * Disables the plug-in and deletes the plug-in folder.
+	 */
+	public void close()
+	{
+		plugin.onDisable();
+		try (Stream<Path> files = Files.walk(dir))
+		{
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Returns the areas registered with the server, as reported by area events.
+	 * @return	the areas.
+	 */
+	public List<Area> getAreas()	{ return server.getAreas();	}
+
+	public Server	getServer()		{ return server;			}
+	public Random	getRandom()		{ return rnd;				}
+	public int		getSide()		{ return side;				}
+
+	/**
+	 * Returns a random point within the world extent.
+	 * @return	the point.
+	 */
+	public Vector3f randomPoint()
+	{
+		return new Vector3f(rnd.nextInt(side) - side / 2 + rnd.nextFloat(),
+				MIN_Y + rnd.nextInt(MAX_Y - MIN_Y) + rnd.nextFloat(), rnd.nextInt(side) - side / 2 + rnd.nextFloat());
+	}
+
+	//********************
+	// PRIVATE HELPER METHODS
+	//********************
+
+	private static long columnKey(int x, int z)
+	{
+		return ((long)x << 32) | (z & 0xFFFFFFFFL);
+	}
+
+	// Writes the areas and the player permissions directly into the plug-in DB.
+	private void writeAreas(int numAreas, int meanSide, int numPlayers) throws SQLException
+	{
+		String	dbPath	= dir.resolve("ap-" + WORLD_NAME + ".db").toString();
+		try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+				PreparedStatement areaStmt = conn.prepareStatement("INSERT INTO `areas` "
+						+ "(`id`,`from_x`,`from_y`,`from_z`,`to_x`,`to_y`,`to_z`,`a_perm`,`name`) VALUES (?,?,?,?,?,?,?,?,?)");
+				PreparedStatement userStmt = conn.prepareStatement(
+						"INSERT INTO `users` (`area_id`,`user_id`,`u_perm`) VALUES (?,?,?)"))
+		{
+			conn.setAutoCommit(false);
+			for (int id = 1; id <= numAreas; id++)
+			{
+				int		fromX	= rnd.nextInt(side) - side / 2;
+				int		fromY	= MIN_Y + rnd.nextInt(64);
+				int		fromZ	= rnd.nextInt(side) - side / 2;
+				// sides from 1/2 to 3/2 of the mean side; heights from 64 to 256 blocks;
+				// players can always enter and leave, to exercise the area tracking
+				areaStmt.setInt(1, id);
+				areaStmt.setInt(2, fromX);
+				areaStmt.setInt(3, fromY);
+				areaStmt.setInt(4, fromZ);
+				areaStmt.setInt(5, fromX + meanSide / 2 + rnd.nextInt(meanSide));
+				areaStmt.setInt(6, fromY + 64 + rnd.nextInt(192));
+				areaStmt.setInt(7, fromZ + meanSide / 2 + rnd.nextInt(meanSide));
+				areaStmt.setLong(8, rnd.nextLong() | AreaProtection.PERM_DEFAULT);
+				areaStmt.setString(9, "area" + id);
+				areaStmt.addBatch();
+				for (int player = 1; player <= numPlayers; player++)
+					if (rnd.nextInt(PLAYER_AREA_RATIO) == 0)
+					{
+						userStmt.setInt(1, id);
+						userStmt.setInt(2, player);
+						userStmt.setLong(3, rnd.nextLong() | AreaProtection.PERM_DEFAULT);
+						userStmt.addBatch();
+					}
+			}
+			areaStmt.executeBatch();
+			userStmt.executeBatch();
+			conn.commit();
+		}
+	}
+}
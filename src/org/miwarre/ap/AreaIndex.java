@@ -0,0 +1,457 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	AreaIndex.java - A spatial index of the defined areas.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package org.miwarre.ap;
+
+import net.risingworld.api.utils.Utils.ChunkUtils;
+import net.risingworld.api.utils.Vector3f;
+import net.risingworld.api.utils.Vector3i;
+
+/**
+ * A spatial index of the defined areas, used to quickly retrieve the areas
+ * which may contain a given point without scanning all of them.
+ * <p>The index has one cell for each world chunk column: each cell lists the
+ * areas whose horizontal (X-Z) extent overlaps the chunk column, so that the
+ * areas involved in an event reported with chunk coordinates can be retrieved
+ * directly from them. As areas usually span most of the world height, the
+ * vertical coordinate is not indexed and is checked on the (few) areas
+ * returned for a cell.
+ * <p>Areas overlapping too many cells are not spread into the grid but kept
+ * in a separate list, which is always checked.
+ * <p>Cell arrays are never modified in place, but replaced, so that a cell
+ * returned by a query is never altered by later additions or removals.
+ * <p>Cells are stored in an open addressing table keyed by primitive packed
+ * chunk coordinates, so that queries never allocate.
+ * <p>The index also keeps a coarse occupancy map of the world: the chunk
+ * columns are grouped into square regions, hashed into a fixed table
+ * counting how many areas (large ones included) overlap the regions of each
+ * slot. A chunk column whose slot count is 0 is certainly in no area, which
+ * can be told with a single array read (see isChunkFree()); as different
+ * regions may share a slot, a non-0 count does not imply the opposite.
+ * <p>Queries only read a bitmap of the slots with a non-0 count, which copies
+ * of the index share until a count crosses 0; the counts themselves are only
+ * needed to update the index and are handed over to each copy.
+ * <p>For each cell, the index also keeps the decomposition of its areas into
+ * disjoint boxes (see CellPartition), built on first use after the cell
+ * changes.
+ */
+class AreaIndex
+{
+	//
+	// CONSTANTS
+	//
+	// the max number of cells an area can be spread into before being considered "large"
+	static final	int			MAX_AREA_CELLS	= 4096;
+	static final	ProtArea[]	NO_AREAS		= new ProtArea[0];
+	private static final int	MIN_CAPACITY	= 64;
+	private static final int	REGION_SHIFT	= 4;		// regions are 16 x 16 chunk columns
+	private static final int	OCCUPANCY_SIZE	= 1 << 16;	// the number of slots of the occupancy map
+
+	//
+	// FIELDS
+	//
+	// the size of a world chunk in blocks (see initChunkSizes())
+	static			int						chunkSizeX	= 32;
+	static			int						chunkSizeY	= 64;
+	static			int						chunkSizeZ	= 32;
+
+	// the grid cells: the packed cell coordinates, the areas and the area partition
+	// (null until first needed) of each used slot (a slot is free if its areas are null)
+	private			long[]					cellKeys;
+	private			ProtArea[][]			cellAreas;
+	private			CellPartition[]			cellParts;
+	private			int						numOfCells;
+	private			ProtArea[]				largeAreas;	// the areas too large to be spread into the grid
+	private			int[]					occupancy;	// for each slot, the number of area regions hashed to it
+	private			long[]					occupied;	// for each slot, a bit set if its count is not 0
+	private			boolean					occupiedShared;	// whether occupied is shared with other copies
+
+	AreaIndex()
+	{
+		allocate(MIN_CAPACITY);
+		largeAreas	= NO_AREAS;
+		allocateOccupancy();
+	}
+
+	/**
+	 * Creates a copy of another index, which can then be modified without
+	 * altering the original; the original can still be queried, but can no
+	 * longer be modified.
+	 * <p>As cell arrays and partitions are never modified in place, the copy
+	 * shares them with the original and only the cell table is duplicated.
+	 * The occupancy bitmap is shared too, until the copy changes it, and the
+	 * occupancy counts are handed over to the copy.
+	 * @param	other	the index to copy.
+	 */
+	AreaIndex(AreaIndex other)
+	{
+		cellKeys	= other.cellKeys.clone();
+		cellAreas	= other.cellAreas.clone();
+		cellParts	= other.cellParts.clone();
+		numOfCells	= other.numOfCells;
+		largeAreas	= other.largeAreas;
+		occupancy	= other.occupancy;
+		occupied	= other.occupied;
+		occupiedShared			= true;
+		other.occupiedShared	= true;
+		other.occupancy			= null;		// the counts now belong to the copy
+	}
+
+	//********************
+	// PACKAGE METHODS
+	//********************
+
+	/**
+	 * Retrieves the size of world chunks from the API, rather than relying
+	 * on hard-coded values. Block coordinates are assumed to be in world units.
+	 */
+	static void initChunkSizes()
+	{
+		Vector3f	origin	= ChunkUtils.getGlobalPosition(new Vector3i(0, 0, 0), new Vector3i(0, 0, 0));
+		Vector3f	next	= ChunkUtils.getGlobalPosition(new Vector3i(1, 1, 1), new Vector3i(0, 0, 0));
+		if (next != null && origin != null && next.x > origin.x && next.y > origin.y && next.z > origin.z)
+		{
+			chunkSizeX	= Math.round(next.x - origin.x);
+			chunkSizeY	= Math.round(next.y - origin.y);
+			chunkSizeZ	= Math.round(next.z - origin.z);
+		}
+	}
+
+	/**
+	 * Converts a chunk coordinate and a block coordinate within the chunk into
+	 * a global block coordinate, for each of the three axes.
+	 * @param	chunk	the chunk coordinate
+	 * @param	block	the block coordinate within the chunk
+	 * @return	the global block coordinate.
+	 */
+	static int globalX(int chunk, int block)	{ return chunk * chunkSizeX + block; }
+	static int globalY(int chunk, int block)	{ return chunk * chunkSizeY + block; }
+	static int globalZ(int chunk, int block)	{ return chunk * chunkSizeZ + block; }
+
+	/**
+	 * Removes all the areas from the index.
+	 */
+	void clear()
+	{
+		allocate(MIN_CAPACITY);
+		largeAreas	= NO_AREAS;
+		allocateOccupancy();
+	}
+
+	/**
+	 * Adds an area to the index.
+	 * @param	area	the area to add.
+	 */
+	void add(ProtArea area)
+	{
+		updateOccupancy(area, 1);
+		if (isLarge(area))
+		{
+			largeAreas	= append(largeAreas, area);
+			return;
+		}
+		int	toCellX	= Math.floorDiv(area.maxX, chunkSizeX);
+		int	toCellZ	= Math.floorDiv(area.maxZ, chunkSizeZ);
+		for (int cellX = Math.floorDiv(area.minX, chunkSizeX); cellX <= toCellX; cellX++)
+			for (int cellZ = Math.floorDiv(area.minZ, chunkSizeZ); cellZ <= toCellZ; cellZ++)
+			{
+				long		key		= cellKey(cellX, cellZ);
+				putCell(key, append(getCell(key), area));
+			}
+	}
+
+	/**
+	 * Removes an area from the index; the area should have the same extent
+	 * it had when it was added.
+	 * @param	area	the area to remove.
+	 */
+	void remove(ProtArea area)
+	{
+		updateOccupancy(area, -1);
+		if (isLarge(area))
+		{
+			largeAreas	= removeFrom(largeAreas, area);
+			return;
+		}
+		int	toCellX	= Math.floorDiv(area.maxX, chunkSizeX);
+		int	toCellZ	= Math.floorDiv(area.maxZ, chunkSizeZ);
+		for (int cellX = Math.floorDiv(area.minX, chunkSizeX); cellX <= toCellX; cellX++)
+			for (int cellZ = Math.floorDiv(area.minZ, chunkSizeZ); cellZ <= toCellZ; cellZ++)
+			{
+				long		key		= cellKey(cellX, cellZ);
+				ProtArea[]	cell	= getCell(key);
+				if (cell.length == 0)
+					continue;
+				cell	= removeFrom(cell, area);
+				if (cell.length == 0)
+					removeCell(key);
+				else
+					putCell(key, cell);
+			}
+	}
+
+	/**
+	 * Returns the areas whose horizontal extent overlaps the given chunk
+	 * column; the areas are not guaranteed to actually contain any specific
+	 * point of the column.
+	 * <p>Large areas are not included: see getLargeAreas().
+	 * @param	chunkX	the X chunk coordinate.
+	 * @param	chunkZ	the Z chunk coordinate.
+	 * @return	the areas registered for the chunk column; never null.
+	 */
+	ProtArea[] getChunkAreas(int chunkX, int chunkZ)
+	{
+		return getCell(cellKey(chunkX, chunkZ));
+	}
+
+	/**
+	 * Returns the areas whose horizontal extent overlaps the chunk column
+	 * containing the given block column.
+	 * <p>Large areas are not included: see getLargeAreas().
+	 * @param	x	the X global block coordinate.
+	 * @param	z	the Z global block coordinate.
+	 * @return	the areas registered for the chunk column; never null.
+	 */
+	ProtArea[] getAreasAt(int x, int z)
+	{
+		return getChunkAreas(Math.floorDiv(x, chunkSizeX), Math.floorDiv(z, chunkSizeZ));
+	}
+
+	/**
+	 * Returns the decomposition into disjoint boxes of the areas of a chunk
+	 * column, building it if it is not built yet.
+	 * <p>Large areas are not included: see getLargeAreas().
+	 * <p>The partition is stored without synchronisation: threads using the
+	 * same index at the same time may build it more than once, but always
+	 * obtain a usable partition, as partitions are immutable.
+	 * @param	chunkX	the X chunk coordinate.
+	 * @param	chunkZ	the Z chunk coordinate.
+	 * @return	the partition or null if the chunk column has no area or too many areas to partition them.
+	 */
+	CellPartition getPartition(int chunkX, int chunkZ)
+	{
+		int				slot	= slotOf(cellKey(chunkX, chunkZ));
+		if (slot < 0)
+			return null;
+		CellPartition	part	= cellParts[slot];
+		if (part == null)
+		{
+			part	= CellPartition.build(cellAreas[slot], chunkX, chunkZ);
+			cellParts[slot]	= part;
+		}
+		return part;
+	}
+
+	/**
+	 * Returns whether a chunk column is certainly outside of any area, large
+	 * areas included, without looking any area up.
+	 * @param	chunkX	the X chunk coordinate.
+	 * @param	chunkZ	the Z chunk coordinate.
+	 * @return	true if no area overlaps the chunk column; false if some area may overlap it.
+	 */
+	boolean isChunkFree(int chunkX, int chunkZ)
+	{
+		int		slot	= occupancySlot(chunkX >> REGION_SHIFT, chunkZ >> REGION_SHIFT);
+		return (occupied[slot >>> 6] & (1L << slot)) == 0;
+	}
+
+	/**
+	 * Returns the areas too large to be spread into the grid cells.
+	 * @return	the large areas; never null.
+	 */
+	ProtArea[] getLargeAreas()		{ return largeAreas; }
+
+	//********************
+	// PRIVATE HELPER METHODS
+	//********************
+
+	private static long cellKey(int cellX, int cellZ)
+	{
+		return ((long)cellX << 32) | (cellZ & 0xFFFFFFFFL);
+	}
+
+	private static int hash(long key)
+	{
+		long	h	= key * 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 32));
+	}
+
+	private static int occupancySlot(int regionX, int regionZ)
+	{
+		return hash(cellKey(regionX, regionZ)) & (OCCUPANCY_SIZE - 1);
+	}
+
+	// Adds delta to the slot counts of the regions overlapped by area. A slot shared
+	// by several of those regions is updated once per region: as an area is removed
+	// with the extent it was added with, its additions and removals still match.
+	private void updateOccupancy(ProtArea area, int delta)
+	{
+		int		fromRegionX	= Math.floorDiv(area.minX, chunkSizeX) >> REGION_SHIFT;
+		int		toRegionX	= Math.floorDiv(area.maxX, chunkSizeX) >> REGION_SHIFT;
+		int		fromRegionZ	= Math.floorDiv(area.minZ, chunkSizeZ) >> REGION_SHIFT;
+		int		toRegionZ	= Math.floorDiv(area.maxZ, chunkSizeZ) >> REGION_SHIFT;
+		long	numRegions	= (long)(toRegionX - fromRegionX + 1) * (toRegionZ - fromRegionZ + 1);
+		if (numRegions >= OCCUPANCY_SIZE)		// a huge area: it may fall in any slot
+		{
+			for (int slot = 0; slot < OCCUPANCY_SIZE; slot++)
+				updateSlot(slot, delta);
+			return;
+		}
+		for (int regionX = fromRegionX; regionX <= toRegionX; regionX++)
+			for (int regionZ = fromRegionZ; regionZ <= toRegionZ; regionZ++)
+				updateSlot(occupancySlot(regionX, regionZ), delta);
+	}
+
+	// Adds delta to the count of a slot and updates its occupancy bit if the count
+	// crosses 0, copying the bitmap first if it is shared.
+	private void updateSlot(int slot, int delta)
+	{
+		int		count	= occupancy[slot];
+		occupancy[slot]	= count + delta;
+		if ((count == 0) == (count + delta == 0))
+			return;
+		if (occupiedShared)
+		{
+			occupied		= occupied.clone();
+			occupiedShared	= false;
+		}
+		occupied[slot >>> 6]	^= 1L << slot;
+	}
+
+	private void allocateOccupancy()
+	{
+		occupancy		= new int[OCCUPANCY_SIZE];
+		occupied		= new long[OCCUPANCY_SIZE / 64];
+		occupiedShared	= false;
+	}
+
+	private void allocate(int capacity)
+	{
+		cellKeys	= new long[capacity];
+		cellAreas	= new ProtArea[capacity][];
+		cellParts	= new CellPartition[capacity];
+		numOfCells	= 0;
+	}
+
+	private int slotOf(long key)
+	{
+		int	mask	= cellKeys.length - 1;
+		int	slot	= hash(key) & mask;
+		while (cellAreas[slot] != null)
+		{
+			if (cellKeys[slot] == key)
+				return slot;
+			slot	= (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	private ProtArea[] getCell(long key)
+	{
+		int	slot	= slotOf(key);
+		return slot >= 0 ? cellAreas[slot] : NO_AREAS;
+	}
+
+	private void putCell(long key, ProtArea[] areas)
+	{
+		int	mask	= cellKeys.length - 1;
+		int	slot	= hash(key) & mask;
+		while (cellAreas[slot] != null)
+		{
+			if (cellKeys[slot] == key)
+			{
+				cellAreas[slot]	= areas;
+				cellParts[slot]	= null;		// the areas changed: the partition will be built again
+				return;
+			}
+			slot	= (slot + 1) & mask;
+		}
+		cellKeys[slot]	= key;
+		cellAreas[slot]	= areas;
+		cellParts[slot]	= null;
+		numOfCells++;
+		if (numOfCells * 2 > cellKeys.length)
+		{
+			long[]			oldKeys		= cellKeys;
+			ProtArea[][]	oldAreas	= cellAreas;
+			allocate(oldKeys.length * 2);
+			for (int i = 0; i < oldKeys.length; i++)
+				if (oldAreas[i] != null)
+					putCell(oldKeys[i], oldAreas[i]);
+		}
+	}
+
+	private void removeCell(long key)
+	{
+		int	slot	= slotOf(key);
+		if (slot < 0)
+			return;
+		// shift back following cells of the same probe sequence, to leave no hole in it
+		int	mask	= cellKeys.length - 1;
+		int	next	= slot;
+		while (true)
+		{
+			next	= (next + 1) & mask;
+			if (cellAreas[next] == null)
+				break;
+			int	home	= hash(cellKeys[next]) & mask;
+			if (slot <= next ? (home <= slot || home > next) : (home <= slot && home > next))
+			{
+				cellKeys[slot]	= cellKeys[next];
+				cellAreas[slot]	= cellAreas[next];
+				cellParts[slot]	= cellParts[next];
+				slot			= next;
+			}
+		}
+		cellAreas[slot]	= null;
+		cellParts[slot]	= null;
+		numOfCells--;
+	}
+
+	private static boolean isLarge(ProtArea area)
+	{
+		long	numCellsX	= Math.floorDiv(area.maxX, chunkSizeX) - Math.floorDiv(area.minX, chunkSizeX) + 1;
+		long	numCellsZ	= Math.floorDiv(area.maxZ, chunkSizeZ) - Math.floorDiv(area.minZ, chunkSizeZ) + 1;
+		return numCellsX * numCellsZ > MAX_AREA_CELLS;
+	}
+
+	private static ProtArea[] append(ProtArea[] list, ProtArea area)
+	{
+		ProtArea[]	newList	= new ProtArea[list.length + 1];
+		System.arraycopy(list, 0, newList, 0, list.length);
+		newList[list.length]	= area;
+		return newList;
+	}
+
+	private static ProtArea[] removeFrom(ProtArea[] list, ProtArea area)
+	{
+		for (int i = 0; i < list.length; i++)
+		{
+			if (list[i] == area)
+			{
+				ProtArea[]	newList	= new ProtArea[list.length - 1];
+				System.arraycopy(list, 0, newList, 0, i);
+				System.arraycopy(list, i + 1, newList, i, list.length - i - 1);
+				return newList;
+			}
+		}
+		return list;
+	}
+}
@@ -102,17 +102,17 @@ public class AreaProtection extends Plugin
 		PERM_OTHERINTERACT,		PERM_EXPLOSION,			PERM_ADDPLAYER,			PERM_OWNER
 	};
 	// player attribute keys
-	static final	String	key_areas			= "com.mwr.apAreas";	// the areas the player has special permission for
-	static final	String	key_areaPerms		= "com.mwr.apPerms";	// the cumulated permissions the player has at the moment
-	static final	String	key_areasShown		= "com.mwr.apShown";	// whether areas are shown or not for the player
-	static final	String	key_areasText		= "com.mwr.apText";		// the names of the areas the player is in
-	static final	String	key_inAreas			= "com.mwr.apInAreas";	// the areas the player is in at the moment
-	static final	String	key_isAdmin			= "com.mwr.apIsAdmin";	// whether the player is admin or manager
+	static final	String	key_session			= "com.mwr.apSession";	// the PlayerSession with all the player data
+
+	// the ways to compute the permissions for an event (see the eventPos setting)
+	static final	int		EVENTPOS_PLAYER		= 0;	// from the player position (the areas the player is in)
+	static final	int		EVENTPOS_EXACT		= 1;	// from the event position
+	static final	int		EVENTPOS_ADAPTIVE	= 2;	// from the player position if it is known to give the same result, otherwise as EXACT
 
 	// The default values for the settings
 	static final	boolean		adminNoPrivDef		= false;
 	static final	boolean		adminOnlyDef		= true;
-	static final	boolean		eventPosDef			= true;
+	static final	int			eventPosDef			= EVENTPOS_EXACT;
 	static final	int			heightTopDef		= 400;
 	static final	int			heightBottomDef		= -600;
 	static final	int			infoBkgColourDef	= 0xE0E0A0E0;
@@ -120,13 +120,14 @@ public class AreaProtection extends Plugin
 	static final	int			infoXPosDef			= 20;
 	static final	int			infoYPosDef			= 70;
 	static final	String		localeLanguageDef	= "en";
+	static final	int			permCacheSizeDef	= 32;
 
 	// FIELDS
 	//
 	static	boolean		adminNoPriv			= adminNoPrivDef;
 	static	boolean		adminOnly			= adminOnlyDef;
 	static	String		commandPrefix		= "/ap";
-	static	boolean		eventPos			= eventPosDef;
+	static	int			eventPos			= eventPosDef;
 	static	int			heightTop			= heightTopDef;
 	static	int			heightBottom		= heightBottomDef;
 	static	int			infoBkgColour		= infoBkgColourDef;
@@ -134,6 +135,7 @@ public class AreaProtection extends Plugin
 	static	int			infoXPos			= infoXPosDef;
 	static	int			infoYPos			= infoYPosDef;
 	static	Locale		locale;
+	static	int			permCacheSize		= permCacheSizeDef;
 
 	static	AreaProtection		plugin;
 	static	Map<String,Long>	presets;	
@@ -150,6 +152,7 @@ public class AreaProtection extends Plugin
 		Msgs.init(getPath(), locale);
 		Db.init();
 		registerEventListener(ListenerPlayer.getInstance());
+		System.out.println("AREA PROTECTION: " + Db.getAreas().size() + " areas loaded in " + Db.getLoadTime() + " ms");
 		System.out.println("AREA PROTECTION "+version+" enabled successfully!");
 	}
 
@@ -161,6 +164,7 @@ public class AreaProtection extends Plugin
 	{
 		unregisterEventListener(ListenerPlayer.getInstance());
 		Db.deinit();
+		System.out.println("AREA PROTECTION " + PermCache.getStats());
 		System.out.println("AREA PROTECTION "+version+" disabled successfully!");
 	}
 
@@ -223,8 +227,8 @@ public class AreaProtection extends Plugin
 	*/
 	public static long getPlayerPermissions(Player player)
 	{
-		Long	perm	= (Long)player.getAttribute(key_areaPerms);
-		return (perm != null ? perm : 0xFFFFFFFF);
+		PlayerSession	session	= PlayerSession.of(player);
+		return (session != null ? session.areaPerms : 0xFFFFFFFF);
 	}
 
 	/**
@@ -320,20 +324,13 @@ public class AreaProtection extends Plugin
 	 */
 	public static boolean areaIntersects(final Area areaA, final Area areaB)
 	{
-// areas are already rearranged on creation
-//		areaA.rearrange();
-//		areaB.rearrange();
-		Vector3f	startA	= ChunkUtils.getGlobalPosition(areaA.getStartChunkPosition(), areaA.getStartBlockPosition());
-		Vector3f	endA	= ChunkUtils.getGlobalPosition(areaA.getEndChunkPosition(),   areaA.getEndBlockPosition());
-		Vector3f	startB	= ChunkUtils.getGlobalPosition(areaB.getStartChunkPosition(), areaB.getStartBlockPosition());
-		Vector3f	endB	= ChunkUtils.getGlobalPosition(areaB.getEndChunkPosition(),   areaB.getEndBlockPosition());
-		return (((startA.x >= startB.x && startA.x <= endB.x) || (endA.x >= startB.x && endA.x <= endB.x) ||
-						(startB.x >= startA.x && startB.x <= endA.x) || (endB.x >= startA.x && endB.x <= endA.x)) &&
-				((startA.y >= startB.y && startA.y <= endB.y) || (endA.y >= startB.y && endA.y <= endB.y) ||
-						(startB.y >= startA.y && startB.y <= endA.y) || (endB.y >= startA.y && endB.y <= endA.y)) &&
-				((startA.z >= startB.z && startA.z <= endB.z) || (endA.z >= startB.z && endA.z <= endB.z) ||
-						(startB.z >= startA.z && startB.z <= endA.z) || (endB.z >= startA.z && endB.z <= endA.z)));
-    }
+		// protected areas have their bounds already computed
+		if (areaA instanceof ProtArea && areaB instanceof ProtArea)
+			return ((ProtArea)areaA).intersectsArea((ProtArea)areaB);
+		int[]	a	= getAreaBounds(areaA);
+		int[]	b	= getAreaBounds(areaB);
+		return ProtArea.boxesIntersect(a[0], a[1], a[2], a[3], a[4], a[5], b[0], b[1], b[2], b[3], b[4], b[5]);
+	}
 
 	/**
 	 * Returns the 3D coordinates of the centre of an RW area as a String.
@@ -342,15 +339,10 @@ public class AreaProtection extends Plugin
 	 */
 	public static String getAreaCentre(Area rwArea)
 	{
-		Vector3f	from, to;
-
-		from	= ChunkUtils.getGlobalPosition(rwArea.getStartChunkPosition(),
-				rwArea.getStartBlockPosition());
-		to		= ChunkUtils.getGlobalPosition(rwArea.getEndChunkPosition(),
-				rwArea.getEndBlockPosition());
-		float		centreN	= (from.z + to.z + 1) / 2;
-		float		centreE	= (from.x + to.x + 1) / 2;
-		float		centreH	= (from.y + to.y + 1) / 2;
+		int[]		bounds	= getAreaBounds(rwArea);
+		float		centreN	= (bounds[2] + bounds[5] + 1) / 2.0f;
+		float		centreE	= (bounds[0] + bounds[3] + 1) / 2.0f;
+		float		centreH	= (bounds[1] + bounds[4] + 1) / 2.0f;
 		String		nSign	= Msgs.msg[Msgs.gui_N];
 		String		eSign	= Msgs.msg[Msgs.gui_W];
 		if (centreN < 0)
@@ -375,20 +367,36 @@ public class AreaProtection extends Plugin
 	 */
 	public static String getAreaSpans(Area rwArea)
 	{
-		Vector3f	from, to;
-
-		from	= ChunkUtils.getGlobalPosition(rwArea.getStartChunkPosition(),
-				rwArea.getStartBlockPosition());
-		to		= ChunkUtils.getGlobalPosition(rwArea.getEndChunkPosition(),
-				rwArea.getEndBlockPosition());
+		int[]		bounds	= getAreaBounds(rwArea);
 		return String.format(Msgs.msg[Msgs.gui_areaSpanFmt],
-				(int)(to.x - from.x)+1, (int)(to.y - from.y)+1, (int)(to.z - from.z)+1);
+				bounds[3] - bounds[0] + 1, bounds[4] - bounds[1] + 1, bounds[5] - bounds[2] + 1);
 	}
 
 	//********************
 	// PRIVATE HELPER METHODS
 	//********************
 
+	/**
+	 * Returns the extent of an RW area in global block coordinates, as an array
+	 * with the min. X, Y and Z coordinates followed by the max. X, Y and Z ones.
+	 * <p>The bounds of a ProtArea are those computed at its creation; other areas
+	 * are converted from their chunk and block positions.
+	 * @param	rwArea	the area
+	 * @return	the area bounds.
+	 */
+	private static int[] getAreaBounds(Area rwArea)
+	{
+		if (rwArea instanceof ProtArea)
+		{
+			ProtArea	area	= (ProtArea)rwArea;
+			return new int[] { area.minX, area.minY, area.minZ, area.maxX, area.maxY, area.maxZ };
+		}
+		Vector3f	from	= ChunkUtils.getGlobalPosition(rwArea.getStartChunkPosition(), rwArea.getStartBlockPosition());
+		Vector3f	to		= ChunkUtils.getGlobalPosition(rwArea.getEndChunkPosition(), rwArea.getEndBlockPosition());
+		return new int[] { (int)Math.min(from.x, to.x), (int)Math.min(from.y, to.y), (int)Math.min(from.z, to.z),
+				(int)Math.max(from.x, to.x), (int)Math.max(from.y, to.y), (int)Math.max(from.z, to.z) };
+	}
+
 	/**
 		Initialises settings from settings file.
 	*/
@@ -407,13 +415,18 @@ public class AreaProtection extends Plugin
 
 			adminNoPriv		= propertyToInt(settings, "adminNoPriv",	adminNoPrivDef ? 1 : 0) != 0;
 			adminOnly		= propertyToInt(settings, "adminOnly",		adminOnlyDef ? 1 : 0) != 0;
-			eventPos		= propertyToInt(settings, "evenPosition",	eventPosDef ? 1 : 0) != 0;
+			// "evenPosition" is the mis-spelled key read by older versions, still accepted
+			eventPos		= propertyToInt(settings, "eventPos",
+					propertyToInt(settings, "evenPosition", eventPosDef));
+			if (eventPos < EVENTPOS_PLAYER || eventPos > EVENTPOS_ADAPTIVE)
+				eventPos	= eventPosDef;
 			heightTop		= propertyToInt(settings, "heightTop",		heightTopDef);
 			heightBottom	= propertyToInt(settings, "heightBottom",	heightBottomDef);
 			infoBkgColour	= propertyToInt(settings, "infoBkgColour",	infoBkgColourDef);
 			infoFontColour	= propertyToInt(settings, "infoFontColour",	infoFontColourDef);
 			infoXPos		= propertyToInt(settings, "infoXPos",		infoXPosDef);
 			infoYPos		= propertyToInt(settings, "infoYPos",		infoYPosDef);
+			permCacheSize	= propertyToInt(settings, "permCacheSize",	permCacheSizeDef);
 			strLocale		= settings.getProperty("locale", localeLanguageDef);
 		}
 		catch (IOException e)
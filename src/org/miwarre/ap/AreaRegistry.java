@@ -0,0 +1,144 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	AreaRegistry.java - The defined areas, published as immutable snapshots.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package org.miwarre.ap;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The registry of the defined areas, by id and by location.
+ * <p>Readers obtain a Snapshot, which never changes once published: they can
+ * use it from any thread and without locking, and never see an area list
+ * and a spatial index which are out of step or half-updated.
+ * <p>Writers build a modified copy of the current snapshot and publish it
+ * atomically in its place (copy-on-write); as areas change rarely compared
+ * to how often they are looked up, copying is acceptable. Writers are
+ * serialised with each other.
+ */
+class AreaRegistry
+{
+	//
+	// FIELDS
+	//
+	private volatile	Snapshot	current	= new Snapshot(new HashMap<Integer,ProtArea>(), new AreaIndex());
+
+	//********************
+	// PACKAGE METHODS
+	//********************
+
+	/**
+	 * Returns the current snapshot of the areas.
+	 * @return	the current snapshot; never null.
+	 */
+	Snapshot snapshot()				{ return current;	}
+
+	/**
+	 * Replaces all the areas with the given ones, for instance when loading
+	 * them from the DB.
+	 * @param	areas	the new areas.
+	 */
+	synchronized void setAll(Collection<ProtArea> areas)
+	{
+		Map<Integer,ProtArea>	byId	= new HashMap<>(areas.size() * 2);
+		AreaIndex				index	= new AreaIndex();
+		for (ProtArea area : areas)
+		{
+			byId.put(area.id, area);
+			index.add(area);
+		}
+		current	= new Snapshot(byId, index);
+	}
+
+	/**
+	 * Removes all the areas.
+	 */
+	synchronized void clear()
+	{
+		current	= new Snapshot(new HashMap<Integer,ProtArea>(), new AreaIndex());
+	}
+
+	/**
+	 * Adds an area; the area id should already be set.
+	 * @param	area	the area to add.
+	 */
+	synchronized void add(ProtArea area)
+	{
+		replace(null, area);
+	}
+
+	/**
+	 * Removes an area.
+	 * @param	area	the area to remove.
+	 */
+	synchronized void remove(ProtArea area)
+	{
+		replace(area, null);
+	}
+
+	/**
+	 * Replaces an area with another, in a single step.
+	 * @param	oldArea	the area to remove; may be null to only add newArea.
+	 * @param	newArea	the area to add; may be null to only remove oldArea.
+	 */
+	synchronized void replace(ProtArea oldArea, ProtArea newArea)
+	{
+		Snapshot				old		= current;
+		Map<Integer,ProtArea>	byId	= new HashMap<>(old.areas);
+		AreaIndex				index	= new AreaIndex(old.index);
+		if (oldArea != null)
+		{
+			byId.remove(oldArea.id);
+			index.remove(oldArea);
+		}
+		if (newArea != null)
+		{
+			byId.put(newArea.id, newArea);
+			index.add(newArea);
+		}
+		current	= new Snapshot(byId, index);
+	}
+
+	/**
+	 * An immutable state of the registry: the areas by id and their spatial index.
+	 */
+	static final class Snapshot
+	{
+		final	Map<Integer,ProtArea>	areas;		// the areas by id; unmodifiable
+		final	ProtArea[]				list;		// the same areas, for fast scans; never modified
+		final	AreaIndex				index;		// the spatial index of the same areas; never modified
+
+		private Snapshot(Map<Integer,ProtArea> areas, AreaIndex index)
+		{
+			this.areas	= Collections.unmodifiableMap(areas);
+			this.list	= areas.values().toArray(new ProtArea[areas.size()]);
+			this.index	= index;
+		}
+
+		/**
+		 * Returns the area with the given id.
+		 * @param	id	the area id.
+		 * @return	the area or null if no area has that id.
+		 */
+		ProtArea get(int id)		{ return areas.get(id);	}
+	}
+}
@@ -0,0 +1,261 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	BoxQuery.java - Evaluates player permissions for a 3D box, in parallel if large.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package org.miwarre.ap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Evaluates the permissions of a player for a 3D box (typically the extent
+ * of a blueprint), as the bitwise OR of the player permissions for all the
+ * areas intersecting the box.
+ * <p>The areas to test are retrieved from the spatial index of a registry
+ * snapshot, cell by cell, or by scanning all the areas if the box spans more
+ * cells than there are areas; either way, each test only compares the integer
+ * bounds cached in the areas.
+ * <p>Queries involving many cells or areas are split into slices evaluated
+ * by a small pool of worker threads, while the calling thread evaluates one
+ * slice itself and then waits for the others up to a time limit; if the limit
+ * is exceeded, the query fails closed, returning no permissions.
+ * <p>Each instance evaluates one slice of a query.
+ */
+class BoxQuery implements Callable<BoxQuery>
+{
+	//
+	// CONSTANTS
+	//
+	// the min. number of cells or areas to test for a query to be split among the workers
+	static final	int		PARALLEL_MIN_WORK	= 16384;
+	// the max. time the calling thread waits for the workers, in milliseconds
+	static final	long	TIMEOUT_MS			= 100;
+	static final	int		NUM_WORKERS			=
+			Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+	//
+	// FIELDS
+	//
+	private static	ExecutorService			workers		= null;
+
+	// the query
+	private final	AreaRegistry.Snapshot	snapshot;
+	private final	int						fromX, fromY, fromZ, toX, toY, toZ;
+	private final	IntLongMap				playerPerms;
+	private final	int						groupId;
+	// the slice: a range of X cells (if byCells) or of indices into the area list
+	private final	boolean					byCells;
+	private final	int						sliceFrom, sliceTo;		// sliceTo excluded
+	// the results
+	private			long					perms		= AreaProtection.PERM_ALL;	// permissions default to everything
+	private			boolean					found		= false;	// whether any area intersects the box
+
+	private BoxQuery(AreaRegistry.Snapshot snapshot, int fromX, int fromY, int fromZ, int toX, int toY, int toZ,
+			IntLongMap playerPerms, int groupId, boolean byCells, int sliceFrom, int sliceTo)
+	{
+		this.snapshot		= snapshot;
+		this.fromX			= fromX;
+		this.fromY			= fromY;
+		this.fromZ			= fromZ;
+		this.toX			= toX;
+		this.toY			= toY;
+		this.toZ			= toZ;
+		this.playerPerms	= playerPerms;
+		this.groupId		= groupId;
+		this.byCells		= byCells;
+		this.sliceFrom		= sliceFrom;
+		this.sliceTo		= sliceTo;
+	}
+
+	//********************
+	// PACKAGE METHODS
+	//********************
+
+	/**
+	 * Starts the worker threads.
+	 */
+	static synchronized void init()
+	{
+		if (workers == null)
+			workers	= Executors.newFixedThreadPool(NUM_WORKERS, new ThreadFactory()
+				{
+					@Override
+					public Thread newThread(Runnable task)
+					{
+						Thread	thread	= new Thread(task, "AreaProtection box query");
+						thread.setDaemon(true);
+						return thread;
+					}
+				}
+			);
+	}
+
+	/**
+	 * Stops the worker threads.
+	 */
+	static synchronized void deinit()
+	{
+		if (workers != null)
+		{
+			workers.shutdownNow();
+			workers	= null;
+		}
+	}
+
+	/**
+	 * Returns the permissions of a player for a box.
+	 * @param	snapshot	the areas to check.
+	 * @param	fromX		the min. X global block coordinate of the box
+	 * @param	fromY		the min. Y global block coordinate of the box
+	 * @param	fromZ		the min. Z global block coordinate of the box
+	 * @param	toX			the max. X global block coordinate of the box
+	 * @param	toY			the max. Y global block coordinate of the box
+	 * @param	toZ			the max. Z global block coordinate of the box
+	 * @param	playerPerms	the player-specific area permissions (may be null)
+	 * @param	groupId		the id of the player permission group (0 if none)
+	 * @return	the bitwise OR of the player permissions for the areas intersecting the box,
+	 *			all the permissions if no area intersects it or no permissions if the
+	 *			evaluation could not be completed in time.
+	 */
+	static long getPermissions(AreaRegistry.Snapshot snapshot, int fromX, int fromY, int fromZ,
+			int toX, int toY, int toZ, IntLongMap playerPerms, int groupId)
+	{
+		int		cellFromX	= Math.floorDiv(fromX, AreaIndex.chunkSizeX);
+		int		cellToX		= Math.floorDiv(toX, AreaIndex.chunkSizeX);
+		long	numCells	= (long)(cellToX - cellFromX + 1)
+				* (Math.floorDiv(toZ, AreaIndex.chunkSizeZ) - Math.floorDiv(fromZ, AreaIndex.chunkSizeZ) + 1);
+		// walk the cells of the box, unless they are more than the areas themselves
+		boolean	byCells		= numCells <= snapshot.list.length;
+		int		from		= byCells ? cellFromX : 0;
+		int		to			= byCells ? cellToX + 1 : snapshot.list.length;
+		long	work		= byCells ? numCells : snapshot.list.length;
+
+		BoxQuery	query	= new BoxQuery(snapshot, fromX, fromY, fromZ, toX, toY, toZ, playerPerms, groupId,
+				byCells, from, to);
+		ExecutorService	pool	= workers;
+		if (work < PARALLEL_MIN_WORK || pool == null || to - from < 2)
+		{
+			query.call();
+			query.addLargeAreas();
+			return query.found ? query.perms : AreaProtection.PERM_ALL;
+		}
+		return query.callParallel(pool);
+	}
+
+	/**
+	 * Evaluates the slice.
+	 * @return	this object, with the slice results.
+	 */
+	@Override
+	public BoxQuery call()
+	{
+		if (byCells)
+		{
+			int		cellFromZ	= Math.floorDiv(fromZ, AreaIndex.chunkSizeZ);
+			int		cellToZ		= Math.floorDiv(toZ, AreaIndex.chunkSizeZ);
+			for (int cellX = sliceFrom; cellX < sliceTo; cellX++)
+				for (int cellZ = cellFromZ; cellZ <= cellToZ; cellZ++)
+					// an area spanning several cells may be tested more than once, with the same result
+					for (ProtArea area : snapshot.index.getChunkAreas(cellX, cellZ))
+						test(area);
+		}
+		else
+		{
+			ProtArea[]	list	= snapshot.list;
+			for (int i = sliceFrom; i < sliceTo; i++)
+				test(list[i]);
+		}
+		return this;
+	}
+
+	//********************
+	// PRIVATE HELPER METHODS
+	//********************
+
+	// Splits the query into slices, evaluated by the workers and by the calling thread.
+	private long callParallel(ExecutorService pool)
+	{
+		// the player map may be modified by the game thread after a time-out, while workers still run
+		IntLongMap	perms		= playerPerms != null ? new IntLongMap(playerPerms) : null;
+		int			numSlices	= NUM_WORKERS + 1;
+		int			sliceLen	= (sliceTo - sliceFrom + numSlices - 1) / numSlices;
+		List<Future<BoxQuery>>	futures	= new ArrayList<>(numSlices - 1);
+		BoxQuery	own			= null;
+		try
+		{
+			for (int start = sliceFrom; start < sliceTo; start += sliceLen)
+			{
+				BoxQuery	slice	= new BoxQuery(snapshot, fromX, fromY, fromZ, toX, toY, toZ, perms, groupId,
+						byCells, start, Math.min(start + sliceLen, sliceTo));
+				if (start + sliceLen >= sliceTo)
+					own	= slice;						// the last slice is evaluated by the calling thread
+				else
+					futures.add(pool.submit(slice));
+			}
+			own.call();
+			own.addLargeAreas();
+			long	deadline	= System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+			for (Future<BoxQuery> future : futures)
+			{
+				BoxQuery	slice	= future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+				own.perms	|= slice.perms;
+				own.found	|= slice.found;
+			}
+			return own.found ? own.perms : AreaProtection.PERM_ALL;
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch (TimeoutException | ExecutionException | RejectedExecutionException e)
+		{
+			// fail closed (see below)
+		}
+		for (Future<BoxQuery> future : futures)
+			future.cancel(true);
+		return 0;
+	}
+
+	// Adds to the results the areas too large to be in the index cells.
+	private void addLargeAreas()
+	{
+		if (byCells)
+			for (ProtArea area : snapshot.index.getLargeAreas())
+				test(area);
+	}
+
+	// Adds to the results the permissions for area, if it intersects the box.
+	private void test(ProtArea area)
+	{
+		if (area.intersectsBox(fromX, fromY, fromZ, toX, toY, toZ))
+		{
+			perms	|= Db.getAreaPermissions(area, playerPerms, groupId);
+			found	= true;
+		}
+	}
+}
@@ -0,0 +1,357 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	CellPartition.java - The areas of a chunk column, decomposed into disjoint boxes.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package org.miwarre.ap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The areas of an AreaIndex cell (a chunk column), decomposed into disjoint
+ * axis-aligned boxes: the borders of all the areas split the column into a
+ * grid of boxes, each entirely inside or outside of each area.
+ * <p>Each box refers to a "cover", the set of the areas containing it; boxes
+ * covered by the same areas share the same cover. For each cover, the
+ * permissions of its areas are pre-combined (OR-ed), once with the default
+ * area permissions and once for each group with permissions of its own for
+ * some of the areas of the cell, so that the permissions for a block are
+ * found with a box look-up (three binary searches) and, only if the player
+ * has permissions of its own for some of the areas, a merge of them.
+ * <p>The box grid only depends on the area extents: as index cells are
+ * replaced whenever an area is added to or removed from them, a partition is
+ * built once for each version of a cell and only the cells touched by an
+ * area change are built again (see AreaIndex.getPartition()). Pre-combined
+ * permissions, which depend on area and group permissions which may change
+ * in place, are re-computed when the PermCache generation changes.
+ * <p>Large areas (see AreaIndex.getLargeAreas()) are not included.
+ * <p>Partitions are immutable, except for the pre-combined permissions, which
+ * are replaced as a whole: they can be used by any thread.
+ */
+class CellPartition
+{
+	//
+	// CONSTANTS
+	//
+	// the max number of areas and of boxes of a partition; more complex cells are not partitioned
+	static final	int			MAX_AREAS		= 64;
+	static final	int			MAX_BOXES		= 32768;
+	// the cover of the boxes outside of any area
+	static final	int			NO_COVER		= 0;
+	// the Y limits of the boxes above and below all the areas; not the int limits, so
+	// that box tests based on coordinate differences (see ProtArea.boxesIntersect()) do not overflow
+	static final	int			BOTTOM_Y		= -(1 << 30);
+	static final	int			TOP_Y			= 1 << 30;
+
+	//
+	// FIELDS
+	//
+	private final	ProtArea[]	areas;		// the areas of the cell
+	// the box borders along each axis: box i spans from borders[i] to borders[i+1]-1
+	private final	int[]		bordersX;
+	private final	int[]		bordersY;
+	private final	int[]		bordersZ;
+	private final	int[]		boxCovers;	// the cover of each box, indexed by (x * numY + y) * numZ + z
+	private final	long[]		covers;		// the areas of each cover, as bits of the areas array
+	private volatile Masks		masks;		// the pre-combined permissions of each cover
+
+	private CellPartition(ProtArea[] areas, int[] bordersX, int[] bordersY, int[] bordersZ,
+			int[] boxCovers, long[] covers)
+	{
+		this.areas		= areas;
+		this.bordersX	= bordersX;
+		this.bordersY	= bordersY;
+		this.bordersZ	= bordersZ;
+		this.boxCovers	= boxCovers;
+		this.covers		= covers;
+	}
+
+	//********************
+	// PACKAGE METHODS
+	//********************
+
+	/**
+	 * Builds the partition of the areas of a chunk column.
+	 * @param	areas	the areas of the chunk column, as listed by the index cell.
+	 * @param	chunkX	the X coordinate of the chunk column.
+	 * @param	chunkZ	the Z coordinate of the chunk column.
+	 * @return	the partition or null if the areas are too many or too fragmented to partition them.
+	 */
+	static CellPartition build(ProtArea[] areas, int chunkX, int chunkZ)
+	{
+		if (areas.length > MAX_AREAS)
+			return null;
+		int		fromX	= AreaIndex.globalX(chunkX, 0);
+		int		fromZ	= AreaIndex.globalZ(chunkZ, 0);
+		int[]	bordersX	= borders(areas, 0, fromX, fromX + AreaIndex.chunkSizeX);
+		int[]	bordersY	= borders(areas, 1, Integer.MIN_VALUE, Integer.MIN_VALUE);
+		int[]	bordersZ	= borders(areas, 2, fromZ, fromZ + AreaIndex.chunkSizeZ);
+		int		numX	= bordersX.length - 1;
+		int		numY	= bordersY.length - 1;
+		int		numZ	= bordersZ.length - 1;
+		if ((long)numX * numY * numZ > MAX_BOXES)
+			return null;
+
+		// for each box, collect the areas containing it (checking its lowest corner is enough,
+		// as no area border crosses a box) and look the set up among the known covers
+		int[]				boxCovers	= new int[numX * numY * numZ];
+		Map<Long,Integer>	coverIds	= new HashMap<>();
+		long[]				covers		= new long[8];
+		int					numCovers	= 1;		// cover 0 is the empty set (NO_COVER)
+		coverIds.put(0L, NO_COVER);
+		for (int x = 0; x < numX; x++)
+			for (int y = 0; y < numY; y++)
+				for (int z = 0; z < numZ; z++)
+				{
+					long	set		= 0;
+					for (int i = 0; i < areas.length; i++)
+						if (areas[i].containsBlock(bordersX[x], bordersY[y], bordersZ[z]))
+							set	|= 1L << i;
+					Integer	cover	= coverIds.get(set);
+					if (cover == null)
+					{
+						cover	= numCovers++;
+						coverIds.put(set, cover);
+						if (cover >= covers.length)
+							covers	= Arrays.copyOf(covers, covers.length * 2);
+						covers[cover]	= set;
+					}
+					boxCovers[(x * numY + y) * numZ + z]	= cover;
+				}
+		return new CellPartition(areas, bordersX, bordersY, bordersZ, boxCovers,
+				Arrays.copyOf(covers, numCovers));
+	}
+
+	/**
+	 * Returns the cover of the box containing a block.
+	 * @param	x	the X global block coordinate.
+	 * @param	y	the Y global block coordinate.
+	 * @param	z	the Z global block coordinate.
+	 * @return	the cover of the block; NO_COVER if no area of the cell contains it.
+	 */
+	int getCover(int x, int y, int z)
+	{
+		int		boxX	= findBox(bordersX, x);
+		int		boxY	= findBox(bordersY, y);
+		int		boxZ	= findBox(bordersZ, z);
+		if (boxX < 0 || boxY < 0 || boxZ < 0)
+			return NO_COVER;
+		return boxCovers[(boxX * (bordersY.length - 1) + boxY) * (bordersZ.length - 1) + boxZ];
+	}
+
+	/**
+	 * Returns the permissions of a player for a cover: the permissions of its areas
+	 * pre-combined for the player group, unless the player has permissions of its
+	 * own for some of them, in which case those are merged area by area.
+	 * @param	cover		the cover, as returned by getCover(); should not be NO_COVER.
+	 * @param	playerPerms	the player-specific area permissions (may be null)
+	 * @param	groupId		the id of the player permission group (0 if none)
+	 * @return	the bitwise OR of the player permissions for the areas of the cover.
+	 */
+	long getPermissions(int cover, IntLongMap playerPerms, int groupId)
+	{
+		Masks	m		= getMasks();
+		long	set		= covers[cover];
+		boolean	merge	= false;
+		if (playerPerms != null && playerPerms.size() != 0)
+			for (long bits = set; bits != 0; bits &= bits - 1)
+				if (playerPerms.containsKey(areas[Long.numberOfTrailingZeros(bits)].id))
+				{
+					merge	= true;
+					break;
+				}
+		if (!merge)
+			return m.forGroup(groupId)[cover];
+		long	perms	= 0;
+		for (long bits = set; bits != 0; bits &= bits - 1)
+			perms	|= Db.getAreaPermissions(areas[Long.numberOfTrailingZeros(bits)], playerPerms, groupId);
+		return perms;
+	}
+
+	/**
+	 * Returns the extent of the box containing a block; boxes above or below
+	 * all the areas of the cell extend up to TOP_Y or down to BOTTOM_Y.
+	 * @param	x	the X global block coordinate, within the chunk column.
+	 * @param	y	the Y global block coordinate.
+	 * @param	z	the Z global block coordinate, within the chunk column.
+	 * @param	box	receives the min X, Y, Z and the max X, Y, Z global block coordinates of the box.
+	 */
+	void getBox(int x, int y, int z, int[] box)
+	{
+		int		boxX	= findBox(bordersX, x);
+		int		boxY	= findBox(bordersY, y);
+		int		boxZ	= findBox(bordersZ, z);
+		box[0]	= bordersX[boxX];
+		box[3]	= bordersX[boxX + 1] - 1;
+		box[2]	= bordersZ[boxZ];
+		box[5]	= bordersZ[boxZ + 1] - 1;
+		if (boxY >= 0)
+		{
+			box[1]	= bordersY[boxY];
+			box[4]	= bordersY[boxY + 1] - 1;
+		}
+		else if (y < bordersY[0])
+		{
+			box[1]	= BOTTOM_Y;
+			box[4]	= bordersY[0] - 1;
+		}
+		else
+		{
+			box[1]	= bordersY[bordersY.length - 1];
+			box[4]	= TOP_Y;
+		}
+	}
+
+	/**
+	 * Returns whether the same areas contain every block of a vertical range
+	 * of the chunk column, i.e. whether no area border crosses it.
+	 * @param	fromY	the lowest Y global block coordinate of the range.
+	 * @param	toY		the highest Y global block coordinate of the range.
+	 * @return	true if the range is uniform.
+	 */
+	boolean isUniform(int fromY, int toY)
+	{
+		if (bordersX.length > 2 || bordersZ.length > 2)
+			return false;
+		for (int border : bordersY)
+			if (border > fromY && border <= toY)
+				return false;
+		return true;
+	}
+
+	//********************
+	// PRIVATE HELPER METHODS
+	//********************
+
+	// Returns the sorted, distinct borders along an axis (0 = X, 1 = Y, 2 = Z) of the areas,
+	// clipped to the from-to range; if from == to, the range is unbounded.
+	private static int[] borders(ProtArea[] areas, int axis, int from, int to)
+	{
+		boolean	bounded	= from != to;
+		int[]	borders	= new int[areas.length * 2 + 2];
+		int		num		= 0;
+		if (bounded)
+		{
+			borders[num++]	= from;
+			borders[num++]	= to;
+		}
+		for (ProtArea area : areas)
+		{
+			int		min	= axis == 0 ? area.minX : (axis == 1 ? area.minY : area.minZ);
+			int		max	= (axis == 0 ? area.maxX : (axis == 1 ? area.maxY : area.maxZ)) + 1;
+			if (!bounded || (min > from && min < to))
+				borders[num++]	= min;
+			if (!bounded || (max > from && max < to))
+				borders[num++]	= max;
+		}
+		Arrays.sort(borders, 0, num);
+		int		distinct	= 0;
+		for (int i = 0; i < num; i++)
+			if (distinct == 0 || borders[i] != borders[distinct - 1])
+				borders[distinct++]	= borders[i];
+		return Arrays.copyOf(borders, distinct);
+	}
+
+	// Returns the box along an axis containing a coordinate or -1 if it is outside of all the boxes.
+	private static int findBox(int[] borders, int coord)
+	{
+		int		low		= 0;
+		int		high	= borders.length - 1;
+		if (coord < borders[0] || coord >= borders[high])
+			return -1;
+		// find the last border <= coord
+		while (high - low > 1)
+		{
+			int		mid		= (low + high) >>> 1;
+			if (borders[mid] <= coord)
+				low		= mid;
+			else
+				high	= mid;
+		}
+		return low;
+	}
+
+	// Returns the pre-combined permissions, re-computing them if areas or permissions changed.
+	private Masks getMasks()
+	{
+		Masks	m	= masks;
+		int		gen	= PermCache.getGeneration();
+		if (m == null || m.generation != gen)
+		{
+			// the groups with permissions of their own for some of the areas
+			IntLongMap	groups	= new IntLongMap();
+			for (ProtArea area : areas)
+			{
+				IntLongMap	areaGroups	= area.groups;
+				if (areaGroups != null)
+					for (int pos = areaGroups.next(0); pos >= 0; pos = areaGroups.next(pos + 1))
+						groups.put(areaGroups.keyAt(pos), 0);
+			}
+			int[]		groupIds	= groups.keys();
+			Arrays.sort(groupIds);
+			long[][]	groupPerms	= new long[groupIds.length][];
+			for (int g = 0; g < groupIds.length; g++)
+				groupPerms[g]	= combine(groupIds[g]);
+			masks	= m	= new Masks(gen, combine(0), groupIds, groupPerms);
+		}
+		return m;
+	}
+
+	// Returns the OR of the permissions of the areas of each cover for a group (0 for no group).
+	private long[] combine(int groupId)
+	{
+		long[]	perms	= new long[covers.length];
+		for (int cover = 0; cover < covers.length; cover++)
+			for (long bits = covers[cover]; bits != 0; bits &= bits - 1)
+			{
+				ProtArea	area	= areas[Long.numberOfTrailingZeros(bits)];
+				perms[cover]	|= groupId != 0 ? area.getGroupPermissions(groupId) : area.permissions;
+			}
+		return perms;
+	}
+
+	/**
+	 * The pre-combined permissions of the covers, for a PermCache generation.
+	 */
+	private static final class Masks
+	{
+		final	int			generation;
+		final	long[]		perms;		// the OR of the default permissions of the areas of each cover
+		final	int[]		groupIds;	// the groups with permissions of their own for some area, sorted
+		final	long[][]	groupPerms;	// for each of them, the OR of the group permissions of each cover
+
+		Masks(int generation, long[] perms, int[] groupIds, long[][] groupPerms)
+		{
+			this.generation	= generation;
+			this.perms		= perms;
+			this.groupIds	= groupIds;
+			this.groupPerms	= groupPerms;
+		}
+
+		// Returns the pre-combined permissions of each cover for a group (0 for no group).
+		long[] forGroup(int groupId)
+		{
+			if (groupId == 0)
+				return perms;
+			int		g	= Arrays.binarySearch(groupIds, groupId);
+			return g >= 0 ? groupPerms[g] : perms;
+		}
+	}
+}
@@ -30,15 +30,12 @@ import java.nio.file.StandardCopyOption;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import net.risingworld.api.Server;
 import net.risingworld.api.database.Database;
-import net.risingworld.api.database.WorldDatabase;
-import net.risingworld.api.gui.GuiLabel;
 import net.risingworld.api.objects.Player;
 import net.risingworld.api.utils.Area;
 import net.risingworld.api.utils.BoundingInformation;
@@ -64,12 +61,55 @@ public class Db
 	static final	int	LIST_TYPE_PLAYER	= 1;
 	static final	int	LIST_TYPE_GROUP		= 2;
 	static final	int	LIST_TYPE_MANAGERS	= 3;
+	private static final	String	ADMIN_PRIV_ON_TEXT	= "| Priv. ON";
+	private static final	String	ADMIN_PRIV_OFF_TEXT	= "| Priv. OFF";
 	// Globals
-	private	static	Map<Integer,ProtArea>	areas		= null;
+	// the areas by id and by location; readers use a snapshot of it
+	private	static	final AreaRegistry		registry	= new AreaRegistry();
+	private	static	final NameIndex			areaNames	= new NameIndex();	// the area names, for searches
 			static	Map<Integer,String>		groupNames	= null;
 	private	static	Map<String,Integer>		groupIds	= null;
-	private static	Map<Integer,String>		playerNames	= null;
+	private	static	final NameIndex			groupIndex	= new NameIndex();	// the group names, for searches
+	private static	PlayerDirectory			playerDirectory	= null;	// the names of all the players known to the world
 	private	static	Database				db			= null;
+	private	static	DbWriter				writer		= null;	// the write-behind queue for DB changes
+	private	static	StatementCache			statements	= null;	// the prepared statements of the plug-in DB
+	private	static	StatementCache			worldStatements	= null;	// the prepared statements of the world DB
+	private	static	long					loadTime	= 0;	// the time taken to load the areas, in ms
+	// the connected players whose data have been loaded, by DB id
+	private	static	final Map<Integer,Player>	connectedPlayers	= new HashMap<>();
+
+	// the parameterised SQL statements used after initialisation
+	private static final	String	SQL_INSERT_AREA		=
+			"INSERT INTO `areas` (from_x,from_y,from_z,to_x,to_y,to_z,a_perm,name) VALUES (?,?,?,?,?,?,?,?)";
+	private static final	String	SQL_SELECT_PLAYER_PERMS	=
+			"SELECT `area_id`,`u_perm` FROM `users` WHERE `user_id` = ?";
+	private static final	String	SQL_SELECT_AREA_USERS	=
+			"SELECT user_id,  u_perm FROM `users`  WHERE area_id = ?";
+	private static final	String	SQL_SELECT_AREA_GROUPS	=
+			"SELECT group_id, g_perm FROM `groups` WHERE area_id = ?";
+	private static final	String	SQL_SELECT_OWNED_AREAS	=
+			"SELECT area_id FROM `users` WHERE user_id = ? AND (u_perm & ?) != 0";
+	private static final	String	SQL_SELECT_ALL_USERS	=
+			"SELECT area_id, user_id,  u_perm FROM `users`  ORDER BY area_id";
+	private static final	String	SQL_SELECT_ALL_GROUPS	=
+			"SELECT area_id, group_id, g_perm FROM `groups` ORDER BY area_id";
+	private static final	String	SQL_INSERT_GROUP		=
+			"INSERT INTO `perm_groups` (name) VALUES (?)";
+	private static final	String	SQL_DELETE_AREA_USERS	=
+			"DELETE FROM `users` WHERE area_id = ?";
+	private static final	String	SQL_DELETE_AREA			=
+			"DELETE FROM `areas` WHERE id = ?";
+	private static final	String	SQL_UPDATE_AREA			=
+			"UPDATE `areas` SET from_x=?,from_y=?,from_z=?,to_x=?,to_y=?,to_z=?,a_perm=?,name=? WHERE id=?";
+	private static final	String	SQL_REPLACE_GROUP_PERMS	=
+			"INSERT OR REPLACE INTO `groups` (area_id,group_id,g_perm) VALUES (?,?,?)";
+	private static final	String	SQL_REPLACE_USER_PERMS	=
+			"INSERT OR REPLACE INTO `users`  (area_id,user_id,u_perm) VALUES (?,?,?)";
+	private static final	String	SQL_DELETE_GROUP_PERMS	=
+			"DELETE FROM `groups` WHERE group_id = ? AND area_id = ?";
+	private static final	String	SQL_DELETE_USER_PERMS	=
+			"DELETE FROM `users`  WHERE user_id = ? AND area_id = ?";
 
 	//********************
 	// PROTECTED METHODS
@@ -81,9 +121,12 @@ public class Db
 	 */
 	static void init()
 	{
+		String	dbPath	= AreaProtection.plugin.getPath() + "/ap-" + AreaProtection.plugin.getWorld().getName()+".db";
 		if (db == null)
-			db = AreaProtection.plugin.getSQLiteConnection(AreaProtection.plugin.getPath()
-					+ "/ap-" + AreaProtection.plugin.getWorld().getName()+".db");
+			db = AreaProtection.plugin.getSQLiteConnection(dbPath);
+		statements		= new StatementCache(db.getConnection());
+		worldStatements	= new StatementCache(AreaProtection.plugin.getWorldDatabase().getConnection());
+		playerDirectory	= new PlayerDirectory(worldStatements);
 
 		// the areas, with the name, the extent and the default permissions
 		db.execute(
@@ -137,24 +180,40 @@ public class Db
 			+ "`c_perm`   INTEGER NOT NULL DEFAULT ( 0 ),"
 			+ "`name`     CHAR(64) NOT NULL DEFAULT ('')"
 			+ ");");*/
-		// using LinkedHashMap ensures areas are enumerated in the same order as they are inserted;
-		// as areas are loaded from DB in name order, this makes area lists mostly in name order
-		// (exceptions are newly created areas which are at the end and will be sordet at next
-		// server and plug-in restart).
-		areas	= new LinkedHashMap<>();
+		AreaIndex.initChunkSizes();
 		initAreas();
 		initGroups();
 		AP3LUAImport();
+		PermCache.invalidateAll();
+		BoxQuery.init();
+		// start the writer only now, as the tables are created and initialised from the main connection
+		try
+		{
+			writer	= new DbWriter(dbPath);
+			writer.start();
+		} catch (SQLException e)
+		{
+			e.printStackTrace();
+		}
 	}
 	static void deinit()
 	{
 		Server	server	= AreaProtection.plugin.getServer();
-		for (Map.Entry<Integer,ProtArea> entry : areas.entrySet())
-		{
-			ProtArea	area	= entry.getValue();
+		for (ProtArea area : registry.snapshot().areas.values())
 			server.removeArea(area);
+		BoxQuery.deinit();
+		registry.clear();
+		areaNames.clear();
+		connectedPlayers.clear();
+		// write any pending change before closing
+		if (writer != null)
+		{
+			writer.close();
+			System.out.println("AREA PROTECTION " + writer.getStats());
+			writer	= null;
 		}
-		areas.clear();
+		statements.close();
+		worldStatements.close();
 		db.close();
 		db = null;
 	}
@@ -167,27 +226,33 @@ public class Db
 	*/
 	static void loadPlayer(Player player)
 	{
-		// admin/manager attribute
-		player.setAttribute(AreaProtection.key_isAdmin, player.isAdmin());
+		// index the player by DB id
+		connectedPlayers.put(player.getDbID(), player);
+		// the session created when the player connected (or a new one, if none)
+		PlayerSession	session		= PlayerSession.of(player);
+		if (session == null)
+		{
+			session	= new PlayerSession(player);
+			player.setAttribute(AreaProtection.key_session, session);
+		}
 		// the map with player-specific area permissions
-		HashMap<Integer,Long>	permAreas	= new HashMap<>();
-		player.setAttribute(AreaProtection.key_areas, permAreas);
-		// the map with permissions for the areas the player currently is in
-		HashMap<Integer,Long>	inAreas	= new HashMap<>();
-		player.setAttribute(AreaProtection.key_inAreas, inAreas);
-		// the cumulated permissions of all areas the player is currently in
-		player.setAttribute(AreaProtection.key_areaPerms, AreaProtection.PERM_ALL);
+		IntLongMap		permAreas	= session.areas;
 		// fill the player-specific area permissions map from DB
-		try (ResultSet result = db.executeQuery("SELECT `area_id`,`u_perm` FROM `users` WHERE `user_id` = "
-				+ player.getDbID())) 
+		flush();
+		try
 		{
-			while (result.next())
+			PreparedStatement	stmt	= statements.get(SQL_SELECT_PLAYER_PERMS);
+			stmt.setInt(1, player.getDbID());
+			try (ResultSet result = stmt.executeQuery())
 			{
-				int		areaId	= result.getInt(1);
-				if (areaId == AreaProtection.AREAMANAGER_AREAID)
-					player.setAttribute(AreaProtection.key_isAdmin, true);
-				else
-					permAreas.put(areaId, result.getLong(2));
+				while (result.next())
+				{
+					int		areaId	= result.getInt(1);
+					if (areaId == AreaProtection.AREAMANAGER_AREAID)
+						session.isAdmin	= true;
+					else
+						permAreas.put(areaId, result.getLong(2));
+				}
 			}
 		} catch (SQLException e) {
 			e.printStackTrace();
@@ -198,12 +263,48 @@ public class Db
 		if (player.isFlying())
 		{
 			Vector3f	pos	= player.getPosition();
-			for (Map.Entry<Integer,ProtArea> entry : areas.entrySet())
-			{
-				ProtArea	area	= entry.getValue();
+			int			x	= (int)Math.floor(pos.x);
+			int			z	= (int)Math.floor(pos.z);
+			AreaIndex	index	= registry.snapshot().index;
+			for (ProtArea area : index.getAreasAt(x, z))
 				if (area.isPointInArea(pos) )
 					onPlayerArea(player, area, true);
-			}
+			for (ProtArea area : index.getLargeAreas())
+				if (area.isPointInArea(pos) )
+					onPlayerArea(player, area, true);
+		}
+	}
+
+	/**
+		Removes a disconnecting player from the index of connected players
+		and releases the player session.
+
+		@param	player	the player.
+	*/
+	static void unloadPlayer(Player player)
+	{
+		connectedPlayers.remove(player.getDbID());
+		player.deleteAttribute(AreaProtection.key_session);
+	}
+
+	/**
+		Resolves again the permission group of a player, which the server may
+		have changed, and, if it did change, updates the permissions of the
+		areas the player is in. The permissions cached for the player are keyed
+		by group id and need no invalidation.
+
+		@param	player	the player.
+	*/
+	static void updatePlayerGroup(Player player)
+	{
+		PlayerSession	session	= PlayerSession.of(player);
+		if (session == null || !session.updateGroup(player))
+			return;
+		for (int areaId : session.inAreas.areaIds())
+		{
+			ProtArea	area	= getAreaFromId(areaId);
+			if (area != null)
+				onPlayerArea(player, area, true);
 		}
 	}
 
@@ -223,35 +324,18 @@ public class Db
 			return AreaProtection.ERR_NOTFOUND;
 
 		// retrieve the list of areas the player is in and set an initial all-permission for the player
-//		@SuppressWarnings("unchecked")
-		HashMap<Integer,Long>	inAreas		= (HashMap<Integer, Long>)player.getAttribute(AreaProtection.key_inAreas);
-		// retrieve the list of areas the player has specific permission for
-//		@SuppressWarnings("unchecked")
-		HashMap<Integer,Long>	areaPerms	= (HashMap<Integer, Long>)player.getAttribute(AreaProtection.key_areas);
+		PlayerSession			session		= PlayerSession.of(player);
+		InAreas					inAreas		= session != null ? session.inAreas : null;
+		boolean					isAdmin		= session != null && session.isAdmin;
 		long					cumulPerm	= AreaProtection.PERM_ALL;
 		int						retVal		= AreaProtection.ERR_SUCCESS;
 		// if not admin OR no admin special privilege,
-		// retrieve the permissions for this player and this area.
-		Long					areaPerm	= AreaProtection.PERM_ALL;
-		if (!(Boolean)player.getAttribute(AreaProtection.key_isAdmin) || AreaProtection.adminNoPriv)
-		{
-			if (areaPerms != null)
-				areaPerm	= areaPerms.get(area.id);	// the player-specific permission for this area
-			if (areaPerm == null)						// if no player-specific permissions...
-			{
-				Long	groupPerm;						// ...get the group the player belongs to
-				String	groupName	= player.getPermissionGroup();
-				// convert group name into group ID
-				// and look for group-specific permission for this area
-				Integer	groupId;
-				if (groupName != null && !groupName.isEmpty() &&
-						(groupId=groupIds.get(groupName)) != null &&
-						(groupPerm = area.groups.get(groupId)) != null)
-					areaPerm	= groupPerm;			// if found, use them as player perms. for area
-				else									// if neither group-specific permission (or no group)
-					areaPerm	= area.permissions;		// ...use default area permissions
-			}
-		}
+		// retrieve the permissions for this player and this area:
+		// the player-specific ones, or else the group-specific ones, or else the area default ones
+		long					areaPerm	= AreaProtection.PERM_ALL;
+		if (!isAdmin || AreaProtection.adminNoPriv)
+			areaPerm	= getAreaPermissions(area, session != null ? session.areas : null,
+					session != null ? session.groupId : getGroupId(player.getPermissionGroup()));
 
 		// upon entering a new area
 		if (enter)
@@ -261,7 +345,7 @@ public class Db
 				return AreaProtection.ERR_CANNOT_ENTER;
 			// otherwise, add this area to the list of areas the player is in
 			if (inAreas != null)
-				inAreas.put(area.id, areaPerm);
+				inAreas.add(area.id, areaPerm);
 		}
 		// upon leaving an area
 		else
@@ -274,59 +358,35 @@ public class Db
 				inAreas.remove(area.id);
 		}
 
-		// in any case, re-compute current cumulative permissions and area info text for the player.
-		// The cumulative permissions are the logical AND of the permissions
+		// in any case, update current cumulative permissions and area info text for the player.
+		// The cumulative permissions are the logical OR of the permissions
 		// (either default or group-specific or player-specific)
-		// of all the areas the player is currently in.
+		// of all the areas the player is currently in; they are kept up to date by inAreas itself.
 		if (inAreas != null)
 		{
-			String	text	= "";
-			for (Map.Entry<Integer,Long> entry : inAreas.entrySet())
-			{
-				String	name	= areas.get(entry.getKey()).getName();	// the area name
-				if (name != null)
-				{
-					// chain names of areas the player is in
-					text	+= (text.isEmpty() ? " " : "| ");
-					text	+= name + " ";
-				}
-// PERM AND
-//				cumulPerm	&= entry.getValue();		// accumulate permissions
-// PERM OR
-				cumulPerm	|= entry.getValue();		// accumulate permissions
-			}
-			if ((Boolean)player.getAttribute(AreaProtection.key_isAdmin))
-				text += "| Priv. " + (AreaProtection.adminNoPriv ? "OFF" : "ON");
-			((GuiLabel)player.getAttribute(AreaProtection.key_areasText)).setText(text);
+			cumulPerm	|= inAreas.getPermissions();		// accumulate permissions
+			playerText(player);
 		}
 		// if admin (and admin privileges are not limited), any permission is enabled
-		if ((Boolean)player.getAttribute(AreaProtection.key_isAdmin) && !AreaProtection.adminNoPriv)
+		if (isAdmin && !AreaProtection.adminNoPriv)
 			cumulPerm	= AreaProtection.PERM_ALL;
-		player.setAttribute(AreaProtection.key_areaPerms, cumulPerm);
+		if (session != null)
+			session.areaPerms	= cumulPerm;
 		return retVal;
 	}
 
+	/**
+	 * Updates the text with the names of the areas the player is in; the text
+	 * is only sent to the player if it changed.
+	 * @param	player	the player
+	 */
 	static void playerText(Player player)
 	{
 		// retrieve the list of areas the player is in
-		HashMap<Integer,Long>	inAreas		= (HashMap<Integer, Long>)player.getAttribute(AreaProtection.key_inAreas);
-		if (inAreas != null)
-		{
-			String	text	= "";
-			for (Map.Entry<Integer,Long> entry : inAreas.entrySet())
-			{
-				String	name	= areas.get(entry.getKey()).getName();	// the area name
-				if (name != null)
-				{
-					// chain names of areas the player is in
-					text	+= (text.isEmpty() ? " " : "| ");
-					text	+= name + " ";
-				}
-			}
-			if ((Boolean)player.getAttribute(AreaProtection.key_isAdmin))
-				text += "| Priv. " + (AreaProtection.adminNoPriv ? "OFF" : "ON");
-			((GuiLabel)player.getAttribute(AreaProtection.key_areasText)).setText(text);
-		}
+		PlayerSession	session	= PlayerSession.of(player);
+		if (session != null)
+			session.inAreas.updateText(session.areasText, session.isAdmin
+						? (AreaProtection.adminNoPriv ? ADMIN_PRIV_OFF_TEXT : ADMIN_PRIV_ON_TEXT) : "");
 	}
 
 	//********************
@@ -334,10 +394,20 @@ public class Db
 	//********************
 
 	/**
-	 * Returns a Map with all the defined areas, hopefully in alphabetic order by name.
+	 * Returns a Map with all the defined areas, by id, in no particular order.
+	 * <p>The Map is an unmodifiable snapshot, which can be safely iterated
+	 * while areas are added or deleted.
+	 * <p>To enumerate areas in name order, use getAreaNames().
 	 * @return a Map with all the defined areas.
 	 */
-	static Map<Integer,ProtArea> getAreas()		{ return areas; }
+	static Map<Integer,ProtArea> getAreas()		{ return registry.snapshot().areas; }
+
+	/**
+	 * Returns the index of the names of all the defined areas, to enumerate
+	 * areas in name order or to search them by name.
+	 * @return	the area name index; it should not be modified.
+	 */
+	static NameIndex getAreaNames()				{ return areaNames; }
 
 	/**
 		Adds the area to the DB and to the local cache.
@@ -349,17 +419,17 @@ public class Db
 	{
 		if (area == null)
 			return AreaProtection.ERR_INVALID_ARG;
-		Vector3f from	= ChunkUtils.getGlobalPosition(area.getStartChunkPosition(), area.getStartBlockPosition());
-		Vector3f to		= ChunkUtils.getGlobalPosition(area.getEndChunkPosition(), area.getEndBlockPosition());
-		// prepare name parameter to avoid quoting issues
-		try(PreparedStatement stmt	= db.getConnection().prepareStatement(
-				"INSERT INTO `areas` (from_x,from_y,from_z,to_x,to_y,to_z,a_perm,name) VALUES ("
-				+(int)from.x+","+(int)from.y+","+(int)from.z+","
-				+(int)to.x+","+(int)to.y+","+(int)to.z+","
-				+area.permissions+",?)")
-		)
+		try
 		{
-			stmt.setString(1, area.name);
+			PreparedStatement	stmt	= statements.get(SQL_INSERT_AREA);
+			stmt.setInt(1, area.minX);
+			stmt.setInt(2, area.minY);
+			stmt.setInt(3, area.minZ);
+			stmt.setInt(4, area.maxX);
+			stmt.setInt(5, area.maxY);
+			stmt.setInt(6, area.maxZ);
+			stmt.setLong(7, area.permissions);
+			stmt.setString(8, area.name);
 			stmt.executeUpdate();
 			try (ResultSet idSet = stmt.getGeneratedKeys())
 			{
@@ -367,8 +437,9 @@ public class Db
 				{
 					int	newId	= idSet.getInt(1);
 					area.id		= newId;
-//					areas.put(newId, area);
-					insertNewArea(area);
+					registry.add(area);
+					areaNames.put(newId, area.name);
+					PermCache.invalidateAll();
 					AreaProtection.plugin.getServer().addArea(area);
 				}
 			}
@@ -378,11 +449,12 @@ public class Db
 			return AreaProtection.ERR_DB;
 		}
 		// show the new area to any player with area display turned on
-		for(Player player : AreaProtection.plugin.getServer().getAllPlayers())
+		for(Player player : connectedPlayers.values())
 		{
 			if (area.isPointInArea(player.getPosition()))	// if player happens to be inside the area,
 				onPlayerArea(player, area, true);			// notify him he just entered it
-			if ((boolean)player.getAttribute(AreaProtection.key_areasShown))
+			PlayerSession	session	= PlayerSession.of(player);
+			if (session != null && session.areasShown)
 				showAreaToPlayer(player, area);
 		}
 		return AreaProtection.ERR_SUCCESS;
@@ -393,32 +465,30 @@ public class Db
 	 * @param area	the area to delete
 	 * @return	one of the AreaProtection.ERR_ codes.
 	 */
-	@SuppressWarnings("unchecked")
 	static int deleteArea(ProtArea area)
 	{
 		int		areaId	= area.id;
-		// delete area data from DB
-		db.executeUpdate("DELETE FROM `users` WHERE area_id="+areaId);
-		db.executeUpdate("DELETE FROM `areas` WHERE id="+areaId);
+		// queue deleting area data from DB
+		queueChange("users:" + areaId, SQL_DELETE_AREA_USERS, areaId);
+		queueChange("areas:" + areaId, SQL_DELETE_AREA, areaId);
 		// delete RW Area
 		AreaProtection.plugin.getServer().removeArea(area);
 		// remove from player caches and for areas shown to players
-		HashMap<Integer,Long>	inAreas;	// the areas the player is in w/ their permissions
-		HashMap<Integer,Long>	permAreas;	// the areas for which the player has special permissions
-		for(Player player : AreaProtection.plugin.getServer().getAllPlayers())
+		for(Player player : connectedPlayers.values())
 		{
-			if ( (inAreas = (HashMap<Integer,Long>)player.getAttribute(AreaProtection.key_inAreas)) != null)
-			{
-				if (inAreas.remove(areaId) != null)		// if the player was inside this area,
-					onPlayerArea(player, area, false);	// notify him he left it
-			}
-			if ( (permAreas	= (HashMap<Integer,Long>)player.getAttribute(AreaProtection.key_areas)) != null)
-				permAreas.remove(areaId);
-			if ((boolean)player.getAttribute(AreaProtection.key_areasShown))
+			PlayerSession	session	= PlayerSession.of(player);
+			if (session == null)
+				continue;
+			if (session.inAreas.remove(areaId))		// if the player was inside this area,
+				onPlayerArea(player, area, false);	// notify him he left it
+			session.areas.remove(areaId);			// the player special permissions for this area
+			if (session.areasShown)
 				player.removeWorldElement(area.worldArea);
 		}
-		// remove from local area list
-		areas.remove(area.id);
+		// remove from area registry and from name index
+		registry.remove(area);
+		areaNames.remove(area.id);
+		PermCache.invalidateAll();
 		return AreaProtection.ERR_SUCCESS;
 	}
 
@@ -433,28 +503,13 @@ public class Db
 		if (area == null || area.id < 1)
 			return AreaProtection.ERR_INVALID_ARG;
 		// update the DB definition of this area
-		Vector3f from	= ChunkUtils.getGlobalPosition(area.getStartChunkPosition(), area.getStartBlockPosition());
-		Vector3f to		= ChunkUtils.getGlobalPosition(area.getEndChunkPosition(), area.getEndBlockPosition());
-		// prepare name parameter to avoid quoting issues
-		String	query	= "UPDATE `areas` SET from_x=" + (int)from.x
-				+ ",from_y=" + (int)from.y
-				+ ",from_z=" + (int)from.z
-				+ ",to_x="   + (int)to.x
-				+ ",to_y="   + (int)to.y
-				+ ",to_z="   + (int)to.z
-				+ ",a_perm=" + area.permissions
-				+ ",name=? WHERE id=" + area.id;
-		try(PreparedStatement stmt	= db.getConnection().prepareStatement(query) )
-		{
-			stmt.setString(1, area.name);
-			stmt.execute();
-		} catch (SQLException e)
-		{
-			e.printStackTrace();
-			return AreaProtection.ERR_DB;
-		}
+		queueChange("areas:" + area.id,
+				SQL_UPDATE_AREA,
+				area.minX, area.minY, area.minZ, area.maxX, area.maxY, area.maxZ,
+				area.permissions, area.name, area.id);
 		// update local cache too
-		ProtArea	oldArea	= areas.get(area.id);	// get existing PermArea with same id
+		PermCache.invalidateAll();
+		ProtArea	oldArea	= registry.snapshot().get(area.id);	// get existing PermArea with same id
 		if (oldArea != null)						// if any exists, check extent
 		{
 			// if extent is different, remove old RW area and add new
@@ -467,19 +522,30 @@ public class Db
 				AreaProtection.plugin.getServer().removeArea(oldArea);
 				AreaProtection.plugin.getServer().addArea(area);
 			}
-			// update PermArea in cache, unless it is the same object as the area it would replace
+			// update PermArea in the registry (by id and in spatial index),
+			// unless it is the same object as the area it would replace
 			if (area != oldArea)
-				areas.put(area.id, area);
+				registry.replace(oldArea, area);
+			areaNames.put(area.id, area.name);		// the area may have been renamed
 			// check any player changed within/without status and show to him updated area if required
-			for(Player player : AreaProtection.plugin.getServer().getAllPlayers())
+			for(Player player : connectedPlayers.values())
 			{
 				Vector3f	playerPos	= player.getPosition();
 				boolean		nowWithin;
 				// if player within/without area status changed
 				if ( (nowWithin=area.isPointInArea(playerPos)) != oldArea.isPointInArea(playerPos))	// if player happens to be inside the area,
 					onPlayerArea(player, area, nowWithin);		// notify him he just entered or leaved the area
+				// if player is within the area, the area name may have changed
+				PlayerSession	session	= PlayerSession.of(player);
+				if (session == null)
+					continue;
+				if (session.inAreas.contains(area.id))
+				{
+					session.inAreas.namesChanged();
+					playerText(player);
+				}
 				// if areas are shown to player, hide old area and show new area
-				if ((boolean)player.getAttribute(AreaProtection.key_areasShown))
+				if (session.areasShown)
 				{
 					if (oldArea.worldArea != null)
 						player.removeWorldElement(oldArea.worldArea);
@@ -497,7 +563,7 @@ public class Db
 	 */
 	static ProtArea getAreaFromId(int id)
 	{
-		return areas.get(id);
+		return registry.snapshot().get(id);
 	}
 
 	//********************
@@ -516,47 +582,47 @@ public class Db
 	{
 		if (area == null || area.id == 0)
 			return AreaProtection.ERR_INVALID_ARG;
-		// add the player/perm for this area to the DB
-		// prepare name parameter to avoid quoting issues
-		try(PreparedStatement stmt	= db.getConnection().prepareStatement(
-				type == LIST_TYPE_GROUP ?
-						"INSERT OR REPLACE INTO `groups` (area_id,group_id,g_perm) VALUES ("+area.id+",?,"+permissions+")"
-					:	"INSERT OR REPLACE INTO `users`  (area_id,user_id,u_perm) VALUES ("+area.id+",?,"+permissions+")"
-				)
-		)
+		// queue adding the player/perm for this area to the DB
+		if (type == LIST_TYPE_GROUP)
+			queueChange("groups:" + area.id + ":" + playerId,
+					SQL_REPLACE_GROUP_PERMS,
+					area.id, playerId, permissions);
+		else
+			queueChange("users:" + area.id + ":" + playerId,
+					SQL_REPLACE_USER_PERMS,
+					area.id, playerId, permissions);
+		PermCache.invalidateAll();
+		// area permission maps are replaced by a modified copy, never modified in place,
+		// as they may be in use by look-ups on other threads
+		IntLongMap	perms;
+		if (type == LIST_TYPE_GROUP)
 		{
-			stmt.setInt(1, playerId);
-			stmt.executeUpdate();
-			if (type == LIST_TYPE_GROUP)
-				area.groups.put(playerId, permissions);
-			else
+			perms	= new IntLongMap(area.groups);
+			perms.put(playerId, permissions);
+			area.setGroups(perms);
+		}
+		else
+		{
+			perms	= new IntLongMap(area.players);
+			perms.put(playerId, permissions);
+			area.players	= perms;
+			// if the player is connected right now, add the details to the player
+			// list of areas for which he has special permissions
+			Player			player	= connectedPlayerFromDBID(playerId);
+			PlayerSession	session	= player != null ? PlayerSession.of(player) : null;
+			if (session != null)
 			{
-				area.players.put(playerId, permissions);
-				// if the player is connected right now, add the details to the player
-				// list of areas for which he has special permissions
-				Player	player	= connectedPlayerFromDBID(playerId);
-				if (player != null)
+				if (area.id == AreaProtection.AREAMANAGER_AREAID)
+					session.isAdmin	= true;
+				else
 				{
-					if (area.id == AreaProtection.AREAMANAGER_AREAID)
-						player.setAttribute(AreaProtection.key_isAdmin, true);
-					else
-					{
-						// the map with player-specific area permissions
-						@SuppressWarnings("unchecked")
-						HashMap<Integer,Long>	permAreas	=
-								(HashMap<Integer, Long>)player.getAttribute(AreaProtection.key_areas);
-						if (permAreas != null)
-							permAreas.put(area.id, permissions);
-						// if player within that area, recompute cumulative permissions
-						if (area.isPointInArea(player.getPosition()))
-							onPlayerArea(player, area, true);
-					}
+					// the map with player-specific area permissions
+					session.areas.put(area.id, permissions);
+					// if player within that area, recompute cumulative permissions
+					if (area.isPointInArea(player.getPosition()))
+						onPlayerArea(player, area, true);
 				}
 			}
-		} catch (SQLException e)
-		{
-			e.printStackTrace();
-			return AreaProtection.ERR_DB;
 		}
 		return AreaProtection.ERR_SUCCESS;
 	}
@@ -572,46 +638,44 @@ public class Db
 	{
 		if (area == null || area.id == 0)
 			return AreaProtection.ERR_INVALID_ARG;
-		// remove the player row(s) for this area from the DB
-		// prepare name parameter to avoid quoting issues
-		try(PreparedStatement stmt	= db.getConnection().prepareStatement(
-				type == LIST_TYPE_GROUP ?
-						"DELETE FROM `groups` WHERE group_id = ? AND area_id="+area.id
-					:	"DELETE FROM `users`  WHERE user_id = ? AND area_id="+area.id)
-		)
+		// queue removing the player row(s) for this area from the DB
+		if (type == LIST_TYPE_GROUP)
+			queueChange("groups:" + area.id + ":" + playerId,
+					SQL_DELETE_GROUP_PERMS, playerId, area.id);
+		else
+			queueChange("users:" + area.id + ":" + playerId,
+					SQL_DELETE_USER_PERMS, playerId, area.id);
+		PermCache.invalidateAll();
+		// area permission maps are replaced by a modified copy (see addPlayerToArea())
+		IntLongMap	perms;
+		if (type == LIST_TYPE_GROUP)
 		{
-			stmt.setInt(1, playerId);
-			stmt.executeUpdate();
-			if (type == LIST_TYPE_GROUP)
-				area.groups.remove(playerId);
-			else
+			perms	= new IntLongMap(area.groups);
+			perms.remove(playerId);
+			area.setGroups(perms);
+		}
+		else
+		{
+			perms	= new IntLongMap(area.players);
+			perms.remove(playerId);
+			area.players	= perms;
+			// if the player is connected right now, remove the details from the player
+			// list of areas for which he has special permissions
+			Player			player	= connectedPlayerFromDBID(playerId);
+			PlayerSession	session	= player != null ? PlayerSession.of(player) : null;
+			if (session != null)
 			{
-				area.players.remove(playerId);
-				// if the player is connected right now, remove the details from the player
-				// list of areas for which he has special permissions
-				Player	player	= connectedPlayerFromDBID(playerId);
-				if (player != null)
+				if (area.id == AreaProtection.AREAMANAGER_AREAID)
+					session.isAdmin	= player.isAdmin();
+				else
 				{
-					if (area.id == AreaProtection.AREAMANAGER_AREAID)
-						player.setAttribute(AreaProtection.key_isAdmin, player.isAdmin());
-					else
-					{
-						// the map with player-specific area permissions
-						@SuppressWarnings("unchecked")
-						HashMap<Integer,Long>	permAreas	=
-								(HashMap<Integer,Long>)player.getAttribute(AreaProtection.key_areas);
-						if (permAreas != null)
-							permAreas.remove(area.id);
-						// if player within that area, recompute cumulative permissions
-						if (area.isPointInArea(player.getPosition()))
-							onPlayerArea(player, area, true);
-					}
+					// the map with player-specific area permissions
+					session.areas.remove(area.id);
+					// if player within that area, recompute cumulative permissions
+					if (area.isPointInArea(player.getPosition()))
+						onPlayerArea(player, area, true);
 				}
 			}
-		} catch (SQLException e)
-		{
-			e.printStackTrace();
-			return AreaProtection.ERR_DB;
 		}
 		return AreaProtection.ERR_SUCCESS;
 	}
@@ -621,24 +685,22 @@ public class Db
 	 * 
 	 * @param	areaId	the id of the area for which to retrieve permissions
 	 * @param	type	either LIST_TYPE_PLAYER or LIST_TYPE_GROUP
-	 * @return			a Map with player name and player permissions for this area.
+	 * @return			a map with player id and player permissions for this area.
 	 */
-	static Map<Integer,Long> getAllPlayerPermissionsForArea(int areaId, int type)
+	static IntLongMap getAllPlayerPermissionsForArea(int areaId, int type)
 	{
-		Map<Integer,Long> areaUsers	= new HashMap<>();
-		// run the query from a separate statement, so that it can be
-		// run in parallel with other queries.
-		try (Statement	stmt	= db.getConnection().createStatement())
+		IntLongMap	areaUsers	= new IntLongMap();
+		flush();
+		try
 		{
-			ResultSet result	=
-					stmt.executeQuery(
-						type == LIST_TYPE_PLAYER
-						?	"SELECT user_id,  u_perm FROM `users`  WHERE area_id = "+areaId
-						:	"SELECT group_id, g_perm FROM `groups` WHERE area_id = "+areaId
-							);
-			while(result.next())
-				areaUsers.put(result.getInt(1), result.getLong(2));
-			result.close();
+			PreparedStatement	stmt	=
+					statements.get(type == LIST_TYPE_PLAYER ? SQL_SELECT_AREA_USERS : SQL_SELECT_AREA_GROUPS);
+			stmt.setInt(1, areaId);
+			try (ResultSet result = stmt.executeQuery())
+			{
+				while(result.next())
+					areaUsers.put(result.getInt(1), result.getLong(2));
+			}
 		}
 		catch(SQLException e)
 		{
@@ -659,28 +721,21 @@ public class Db
 	 */
 	static long getPlayerPermissionsForArea(Player player, int areaId)
 	{
-		if (player != null)
+		PlayerSession	session	= player != null ? PlayerSession.of(player) : null;
+		if (session != null)
 		{
 			// if player is an admin, he has all the permissions,
 			// unless revoked by settings
-			if ((Boolean)player.getAttribute(AreaProtection.key_isAdmin) && !AreaProtection.adminNoPriv)
+			if (session.isAdmin && !AreaProtection.adminNoPriv)
 				return AreaProtection.PERM_ALL;
-			// the map with player-specific area permissions
-			@SuppressWarnings("unchecked")
-			HashMap<Integer,Long>	permAreas	=
-					(HashMap<Integer,Long>)player.getAttribute(AreaProtection.key_areas);
-			if (permAreas != null)
-			{
-				// if the map exists, look for permissions for this specific area
-				Long	perms	= permAreas.get(areaId);
-				// if specific permissions exists, return them
-				if (perms != null)
-					return perms;
-			}
+			// look for player-specific permissions for this specific area
+			// and, if specific permissions exists, return them
+			if (session.areas.containsKey(areaId))
+				return session.areas.get(areaId, 0);
 		}
 		// if specific permission do not exist, or the player has no permissions map,
 		// or player do not exist or is not connected, look for generic permissions for this area
-		ProtArea	area	= areas.get(areaId);
+		ProtArea	area	= registry.snapshot().get(areaId);
 		// if the area exists, return its generic permissions
 		if (area != null)
 			return area.permissions;
@@ -696,21 +751,25 @@ public class Db
 	static Map<Integer,ProtArea> getOwnedAreas(Player player)
 	{
 		// if player is an admin, return the list of all known areas.
-		if ((Boolean)player.getAttribute(AreaProtection.key_isAdmin))
-			return areas;
+		if (PlayerSession.isAdmin(player))
+			return registry.snapshot().areas;
 
 		Map<Integer,ProtArea> ownedAreas	= new HashMap<>();
-		try(ResultSet result = db.executeQuery("SELECT area_id FROM `users` WHERE user_id = '" +
-				player.getDbID() + "' AND (u_perm & ("+
-				AreaProtection.PERM_OWNER + " | " + AreaProtection.PERM_ADDPLAYER + ")) != 0"))
+		flush();
+		try
 		{
-			while(result.next())
+			PreparedStatement	stmt	= statements.get(SQL_SELECT_OWNED_AREAS);
+			stmt.setInt(1, player.getDbID());
+			stmt.setLong(2, AreaProtection.PERM_OWNER | AreaProtection.PERM_ADDPLAYER);
+			try (ResultSet result = stmt.executeQuery())
 			{
-				int			id		= result.getInt(1);
-				ProtArea	area	= areas.get(id);
-				ownedAreas.put(id, area);
+				while(result.next())
+				{
+					int			id		= result.getInt(1);
+					ProtArea	area	= registry.snapshot().get(id);
+					ownedAreas.put(id, area);
+				}
 			}
-			result.close();
 		}
 		catch(SQLException e)
 		{
@@ -719,53 +778,103 @@ public class Db
 		return ownedAreas;
 	}
 
+	/**
+	 * Retrieves the names of the areas owned by a player, to enumerate them in
+	 * name order or to search them by name.
+	 * <p>Any admin implicitly owns all areas.
+	 * @param player	the player to retrieve areas for.
+	 * @return			an index of the names of the areas owned by the player;
+	 *					it should not be modified.
+	 */
+	static NameIndex getOwnedAreaNames(Player player)
+	{
+		// if player is an admin, return the index of all known areas.
+		if (PlayerSession.isAdmin(player))
+			return areaNames;
+		NameIndex	ownedNames	= new NameIndex();
+		for (ProtArea area : getOwnedAreas(player).values())
+			if (area != null)
+				ownedNames.put(area.id, area.name);
+		return ownedNames;
+	}
+
 	/**
 	 * Gets the player permissions for an arbitrary point.
+	 * <p>The returned value is the bitwise OR of the player permissions for all the areas
+	 * containing the point or all the permissions if no area contains it.
 	 * @param	player	the player to retrieve permissions for
 	 * @param	point	the point
 	 * @return	the player permission for the point.
 	 */
 	public static long getPlayerPermissionsForPoint(Player player, Vector3f point)
 	{
-		// if admin AND admins are not demoted, return all permissions
-		if ((Boolean)player.getAttribute(AreaProtection.key_isAdmin) && !AreaProtection.adminNoPriv)
-			return AreaProtection.PERM_ALL;
+		int		x	= (int)Math.floor(point.x);
+		int		y	= (int)Math.floor(point.y);
+		int		z	= (int)Math.floor(point.z);
+		int		chunkX	= Math.floorDiv(x, AreaIndex.chunkSizeX);
+		int		chunkY	= Math.floorDiv(y, AreaIndex.chunkSizeY);
+		int		chunkZ	= Math.floorDiv(z, AreaIndex.chunkSizeZ);
+		return getPlayerPermissionsForBlock(player, registry.snapshot().index,
+				chunkX, chunkY, chunkZ, x, y, z);
+	}
 
-		// retrieve the player group and convert group name into group ID
-		String		groupName	= player.getPermissionGroup();
-		Integer		groupId	= null;
-		if (groupName != null && !groupName.isEmpty())
-				groupId	= groupIds.get(groupName);
+	/**
+	 * Gets the player permissions for a block given in chunk coordinates, as reported
+	 * by block, terrain, grass and water events.
+	 * <p>The areas to check are retrieved directly from the chunk coordinates,
+	 * without going through a global position.
+	 * @param	player	the player to retrieve permissions for
+	 * @param	chunkX	the X coordinate of the chunk
+	 * @param	chunkY	the Y coordinate of the chunk
+	 * @param	chunkZ	the Z coordinate of the chunk
+	 * @param	blockX	the X coordinate of the block within the chunk
+	 * @param	blockY	the Y coordinate of the block within the chunk
+	 * @param	blockZ	the Z coordinate of the block within the chunk
+	 * @return	the player permission for the block.
+	 */
+	public static long getPlayerPermissionsForBlock(Player player, int chunkX, int chunkY, int chunkZ,
+			int blockX, int blockY, int blockZ)
+	{
+		return getPlayerPermissionsForBlock(player, registry.snapshot().index,
+				chunkX, chunkY, chunkZ, AreaIndex.globalX(chunkX, blockX),
+				AreaIndex.globalY(chunkY, blockY), AreaIndex.globalZ(chunkZ, blockZ));
+	}
 
-		// retrieve the list of areas the player has specific permission for
-		HashMap<Integer,Long>	playerPerms	= (HashMap<Integer, Long>)player.getAttribute(AreaProtection.key_areas);
-		long					cumulPerm	= AreaProtection.PERM_ALL;			// permissions default to everything
+	/**
+	 * Gets the player permissions for an arbitrary point in adaptive mode
+	 * (see getAdaptivePermissions()).
+	 * @param	player	the player to retrieve permissions for
+	 * @param	session	the session of the player
+	 * @param	point	the point
+	 * @return	the player permission for the point.
+	 */
+	static long getAdaptivePermissionsForPoint(Player player, PlayerSession session, Vector3f point)
+	{
+		int		x	= (int)Math.floor(point.x);
+		int		y	= (int)Math.floor(point.y);
+		int		z	= (int)Math.floor(point.z);
+		return getAdaptivePermissions(player, session, Math.floorDiv(x, AreaIndex.chunkSizeX),
+				Math.floorDiv(y, AreaIndex.chunkSizeY), Math.floorDiv(z, AreaIndex.chunkSizeZ), x, y, z);
+	}
 
-		Long		aPerm;
-		// scan all areas to collect all areas which contain the point
-		for (ProtArea area : areas.values())
-		{
-			// if the current area contains the point...
-			if (area.isPointInArea(point))
-			{
-				// ..check the player has special permissions to the area
-				if ( (aPerm=playerPerms.get(area.id)) == null)
-					// if the player has no special permission,
-					// check the player belongs to a group
-					// and the area has special permissions for that group
-					if (groupId != null)
-						aPerm	= area.groups.get(groupId);
-				// if no group, use generic area permissions
-				if (aPerm == null)
-					aPerm	= area.permissions;
-				// mask cumulative permissions with player permissions for this area
-// PERM AND
-//				cumulPerm	&= aPerm;
-// PERM OR
-				cumulPerm	|= aPerm;
-			}
-		}
-		return cumulPerm;
+	/**
+	 * Gets the player permissions for a block given in chunk coordinates in
+	 * adaptive mode (see getAdaptivePermissions()).
+	 * @param	player	the player to retrieve permissions for
+	 * @param	session	the session of the player
+	 * @param	chunkX	the X coordinate of the chunk
+	 * @param	chunkY	the Y coordinate of the chunk
+	 * @param	chunkZ	the Z coordinate of the chunk
+	 * @param	blockX	the X coordinate of the block within the chunk
+	 * @param	blockY	the Y coordinate of the block within the chunk
+	 * @param	blockZ	the Z coordinate of the block within the chunk
+	 * @return	the player permission for the block.
+	 */
+	static long getAdaptivePermissionsForBlock(Player player, PlayerSession session,
+			int chunkX, int chunkY, int chunkZ, int blockX, int blockY, int blockZ)
+	{
+		return getAdaptivePermissions(player, session, chunkX, chunkY, chunkZ, AreaIndex.globalX(chunkX, blockX),
+				AreaIndex.globalY(chunkY, blockY), AreaIndex.globalZ(chunkZ, blockZ));
 	}
 
 	/**
@@ -782,51 +891,21 @@ public class Db
 	public static long getPlayerPermissionsForBounding(Player player, BoundingInformation bi)
 	{
 		// if admin AND admins are not demoted, return all permissions
-		if ((Boolean)player.getAttribute(AreaProtection.key_isAdmin) && !AreaProtection.adminNoPriv)
+		PlayerSession	session	= PlayerSession.of(player);
+		if (session == null || (session.isAdmin && !AreaProtection.adminNoPriv))
 			return AreaProtection.PERM_ALL;
 
-		// convert bounding info into an area
+		// convert bounding info into a box of global block coordinates
 		Vector3f	centre		= bi.getCenter();
 		Vector3f	minBoundary	= centre.subtract(bi.getXExtent(), bi.getYExtent(), bi.getZExtent());
 		Vector3f	maxBoundary	= centre.add(bi.getXExtent(), bi.getYExtent(), bi.getZExtent());
-		Area		boundArea	= new Area(minBoundary, maxBoundary);
-
-		// retrieve the player group and convert group name into group ID
-		String		groupName	= player.getPermissionGroup();
-		Integer		groupId	= null;
-		if (groupName != null && !groupName.isEmpty())
-				groupId	= groupIds.get(groupName);
-
-		// retrieve the list of areas the player has specific permission for
-		HashMap<Integer,Long>	playerPerms	= (HashMap<Integer, Long>)player.getAttribute(AreaProtection.key_areas);
-		long					cumulPerm	= AreaProtection.PERM_ALL;			// permissions default to everything
 
-		Long		aPerm;
-		// scan all areas to collect all areas which intersect the bound area
-		for (ProtArea area : areas.values())
-		{
-			// if the current area contains the point...
-//			if (area.intersects(boundArea))
-			if (AreaProtection.areaIntersects(area, boundArea))
-			{
-				// ..check the player has special permissions to the area
-				if ( (aPerm=playerPerms.get(area.id)) == null)
-					// if the player has no special permission,
-					// check the player belongs to a group
-					// and the area has special permissions for that group
-					if (groupId != null)
-						aPerm	= area.groups.get(groupId);
-				// if no group, use generic area permissions
-				if (aPerm == null)
-					aPerm	= area.permissions;
-				// mask cumulative permissions with player permissions for this area
-//PERM AND
-//				cumulPerm	&= aPerm;
-// PERM OR
-				cumulPerm	|= aPerm;
-			}
-		}
-		return cumulPerm;
+		// accumulate player permissions for all the areas which intersect the box;
+		// permissions default to everything, if the extent intersects no area
+		return BoxQuery.getPermissions(registry.snapshot(),
+				(int)Math.floor(minBoundary.x), (int)Math.floor(minBoundary.y), (int)Math.floor(minBoundary.z),
+				(int)Math.floor(maxBoundary.x), (int)Math.floor(maxBoundary.y), (int)Math.floor(maxBoundary.z),
+				session.areas, session.groupId);
 	}
 
 	/**
@@ -850,7 +929,8 @@ public class Db
 	 */
 	static boolean togglePlayerAreas(Player player)
 	{
-		boolean show	= !(boolean)player.getAttribute(AreaProtection.key_areasShown);
+		PlayerSession	session	= PlayerSession.of(player);
+		boolean show	= session == null || !session.areasShown;
 		if (show)
 			showAreasToPlayer(player);
 		else
@@ -860,17 +940,20 @@ public class Db
 
 	static void showAreasToPlayer(Player player)
 	{
-		player.setAttribute(AreaProtection.key_areasShown, true);
-		for (Map.Entry<Integer,ProtArea> entry : areas.entrySet())
-			showAreaToPlayer(player, entry.getValue());
+		PlayerSession	session	= PlayerSession.of(player);
+		if (session != null)
+			session.areasShown	= true;
+		for (ProtArea area : registry.snapshot().areas.values())
+			showAreaToPlayer(player, area);
 	}
 
 	static void hideAreasToPlayer(Player player)
 	{
-		player.setAttribute(AreaProtection.key_areasShown, false);
-		for (Map.Entry<Integer,ProtArea> entry : areas.entrySet())
+		PlayerSession	session	= PlayerSession.of(player);
+		if (session != null)
+			session.areasShown	= false;
+		for (ProtArea area : registry.snapshot().areas.values())
 		{
-			ProtArea	area	= entry.getValue();
 			if (area.worldArea != null)
 				player.removeWorldElement(area.worldArea);
 		}
@@ -884,29 +967,326 @@ public class Db
 	 */
 	static String getPlayerNameFromId(int playerId, int type)
 	{
-		Map<Integer,String>	players = groupNames;
 		if (type == LIST_TYPE_PLAYER || type == LIST_TYPE_MANAGERS)
-		{
-			if (playerNames == null)
-				initPlayers();
-			players	= playerNames;
-		}
-		return players.get(playerId);
+			return playerDirectory.getName(playerId);
+		return groupNames.get(playerId);
+	}
+
+	/**
+	 * Returns a page of the players known to the world, in name order. The players need not to be connected.
+	 * @param	prefix	only players whose name starts with prefix (ignoring case) are returned;
+	 *					null or empty for all the players
+	 * @param	after	the player after which the page starts, usually the last player of
+	 *					the previous page; null to start from the first player
+	 * @param	limit	the max number of players to return
+	 * @param	exclude	the DB id's of the players to leave out, as the keys of the map; may be null
+	 * @return	the DB id's and names of the players.
+	 */
+	static List<NameIndex.Entry> getPlayerPage(String prefix, NameIndex.Entry after, int limit, IntLongMap exclude)
+	{
+		return playerDirectory.getPage(prefix, after, limit, exclude);
 	}
 
-	static Set<Integer> getPlayerIdSet()
+	/**
+	 * Returns the number of players known to the world whose name starts with the given prefix.
+	 * @param	prefix	the name prefix (ignoring case); null or empty for all the players
+	 * @param	exclude	the DB id's of the players to leave out, as the keys of the map; may be null
+	 * @return	the number of matching players.
+	 */
+	static int countPlayers(String prefix, IntLongMap exclude)
 	{
-		if (playerNames == null)
-			initPlayers();
-		return playerNames.keySet();
+		return playerDirectory.count(prefix, exclude);
 	}
 
-	static void resetPlayers()		{ playerNames = null; }
+	/**
+	 * Returns the index of the names of all the permission groups, to enumerate
+	 * groups in name order or to search them by name.
+	 * @return	the group name index; it should not be modified.
+	 */
+	static NameIndex getGroupNameIndex()		{ return groupIndex; }
+
+	/**
+	 * Adds a player new to the world to the player directory.
+	 * @param	player	the new player
+	 */
+	static void addNewPlayer(Player player)	{ playerDirectory.add(player.getDbID(), player.getName()); }
+
+	/**
+	 * Returns the time taken at start-up to load the areas and their permissions.
+	 * @return	the load time in milliseconds.
+	 */
+	static long getLoadTime()		{ return loadTime; }
+
+	/**
+	 * Returns a printable summary of the DB writer statistics.
+	 * @return	the statistics as a text.
+	 */
+	static String getWriterStats()	{ return writer != null ? writer.getStats() : "DB writer: not running"; }
+
+	/**
+	 * Returns a printable summary of how the events of a player were resolved in adaptive mode.
+	 * @param	player	the player
+	 * @return	the statistics as a text.
+	 */
+	static String getAdaptiveStats(Player player)
+	{
+		PlayerSession	session	= PlayerSession.of(player);
+		long			fast	= session != null ? session.adaptiveFast : 0;
+		long			exact	= session != null ? session.adaptiveExact : 0;
+		long			events	= fast + exact;
+		return "Adaptive mode: " + fast + " from player pos., " + exact + " from event pos. ("
+				+ (events > 0 ? fast * 100 / events : 0) + "% from player pos.)";
+	}
 
 	//********************
 	// PRIVATE HELPER METHODS
 	//********************
 
+	// Waits for any queued change to be written, before reading back from the DB.
+	private static void flush()
+	{
+		if (writer != null)
+			writer.flush();
+	}
+
+	/**
+	 * Queues a DB change to the writer or, if the writer is not running or is
+	 * stopping, executes it at once, after any change already queued.
+	 * @param	key		the key identifying the DB row(s) affected by the change (see DbWriter)
+	 * @param	sql		the SQL statement implementing the change, with '?' placeholders
+	 * @param	params	the values of the placeholders
+	 */
+	private static void queueChange(String key, String sql, Object... params)
+	{
+		if (writer != null)
+		{
+			if (writer.queue(key, sql, params))
+				return;
+			writer.flush();
+		}
+		try
+		{
+			PreparedStatement	stmt	= statements.get(sql);
+			for (int i = 0; i < params.length; i++)
+				stmt.setObject(i + 1, params[i]);
+			stmt.executeUpdate();
+		} catch (SQLException e)
+		{
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Returns the permissions of a player for a specific area: the player-specific
+	 * permissions if any, otherwise the group-specific permissions if any, otherwise
+	 * the area default permissions.
+	 * @param	area		the area
+	 * @param	playerPerms	the player-specific area permissions (may be null)
+	 * @param	groupId		the id of the player permission group (0 if none)
+	 * @return	the player permissions for the area.
+	 */
+	static long getAreaPermissions(ProtArea area, IntLongMap playerPerms, int groupId)
+	{
+		// generic area permissions, unless the player belongs to a group
+		// and the area has special permissions for that group
+		long	aPerm	= groupId != 0 ? area.getGroupPermissions(groupId) : area.permissions;
+		// if the player has special permissions to the area, they take precedence
+		return playerPerms != null ? playerPerms.get(area.id, aPerm) : aPerm;
+	}
+
+	/**
+	 * Gets the player permissions for a global block position.
+	 * <p>The returned value is the bitwise OR of the player permissions for all the areas
+	 * containing the block or all the permissions if no area contains it.
+	 * <p>If the same permissions apply to the whole chunk of the block (i.e. no area
+	 * border crosses the chunk), they are stored in the player permission cache
+	 * and later requests for the same chunk are answered from it.
+	 * @param	player	the player to retrieve permissions for
+	 * @param	areaIndex	the spatial index of the areas, from a registry snapshot
+	 * @param	chunkX	the X coordinate of the chunk containing the block
+	 * @param	chunkY	the Y coordinate of the chunk containing the block
+	 * @param	chunkZ	the Z coordinate of the chunk containing the block
+	 * @param	x		the X global block coordinate
+	 * @param	y		the Y global block coordinate
+	 * @param	z		the Z global block coordinate
+	 * @return	the player permission for the block.
+	 */
+	private static long getPlayerPermissionsForBlock(Player player, AreaIndex areaIndex,
+			int chunkX, int chunkY, int chunkZ, int x, int y, int z)
+	{
+		// if the chunk is in no area (the most common case), everything is permitted
+		if (areaIndex.isChunkFree(chunkX, chunkZ))
+			return AreaProtection.PERM_ALL;
+
+		// if admin AND admins are not demoted, return all permissions
+		PlayerSession	session	= PlayerSession.of(player);
+		if (session == null || (session.isAdmin && !AreaProtection.adminNoPriv))
+			return AreaProtection.PERM_ALL;
+
+		// look the chunk up in the player cache
+		int			groupId	= session.groupId;
+		PermCache	cache	= session.permCache;
+		int			index;
+		if ((index = cache.find(chunkX, chunkY, chunkZ, groupId)) >= 0)
+			return cache.getPerms(index);
+
+		// scan the areas, using the player-specific permissions
+		return getBlockPermissions(areaIndex, chunkX, chunkY, chunkZ, x, y, z, session.areas, groupId, cache);
+	}
+
+	/**
+	 * Gets the player permissions for a global block position in adaptive mode.
+	 * <p>If the block falls in the box recorded in the player session, the cumulated
+	 * permissions of the areas the player is in (as maintained by onPlayerArea()) are
+	 * returned without any look-up: the box is crossed by no area border and the
+	 * permissions in it were found to be the same as the player ones.
+	 * <p>Otherwise, the permissions are looked up exactly; if they are the same as the
+	 * player ones, the box of the block becomes the new recorded box. The box is
+	 * dropped if the player permissions, the player group or any area data change.
+	 * @param	player	the player to retrieve permissions for
+	 * @param	session	the session of the player
+	 * @param	chunkX	the X coordinate of the chunk containing the block
+	 * @param	chunkY	the Y coordinate of the chunk containing the block
+	 * @param	chunkZ	the Z coordinate of the chunk containing the block
+	 * @param	x		the X global block coordinate
+	 * @param	y		the Y global block coordinate
+	 * @param	z		the Z global block coordinate
+	 * @return	the player permission for the block.
+	 */
+	private static long getAdaptivePermissions(Player player, PlayerSession session,
+			int chunkX, int chunkY, int chunkZ, int x, int y, int z)
+	{
+		int		generation	= PermCache.getGeneration();
+		int		groupId		= session.groupId;
+		int[]	box			= session.safeBox;
+		if (session.safeBoxValid && session.safeBoxPerms == session.areaPerms
+				&& session.safeBoxGeneration == generation && session.safeBoxGroupId == groupId
+				&& x >= box[0] && y >= box[1] && z >= box[2] && x <= box[3] && y <= box[4] && z <= box[5])
+		{
+			session.adaptiveFast++;
+			return session.areaPerms;
+		}
+
+		session.adaptiveExact++;
+		AreaIndex	areaIndex	= registry.snapshot().index;
+		long		perms		= getPlayerPermissionsForBlock(player, areaIndex, chunkX, chunkY, chunkZ, x, y, z);
+		session.safeBoxValid	= perms == session.areaPerms && getUniformBox(areaIndex, chunkX, chunkZ, x, y, z, box);
+		session.safeBoxPerms	= perms;
+		session.safeBoxGroupId	= groupId;
+		session.safeBoxGeneration	= generation;
+		return perms;
+	}
+
+	/**
+	 * Finds a box around a block in which every block is contained in the same areas.
+	 * @param	areaIndex	the spatial index of the areas, from a registry snapshot
+	 * @param	chunkX		the X coordinate of the chunk containing the block
+	 * @param	chunkZ		the Z coordinate of the chunk containing the block
+	 * @param	x			the X global block coordinate
+	 * @param	y			the Y global block coordinate
+	 * @param	z			the Z global block coordinate
+	 * @param	box			receives the min X, Y, Z and the max X, Y, Z global block coordinates of the box.
+	 * @return	true if a box was found; false if the areas around the block are too complex.
+	 */
+	private static boolean getUniformBox(AreaIndex areaIndex, int chunkX, int chunkZ, int x, int y, int z, int[] box)
+	{
+		CellPartition	partition	= areaIndex.getPartition(chunkX, chunkZ);
+		if (partition != null)
+			partition.getBox(x, y, z, box);
+		else if (areaIndex.getChunkAreas(chunkX, chunkZ).length == 0)
+		{
+			// no area in the chunk column: the whole column
+			box[0]	= AreaIndex.globalX(chunkX, 0);
+			box[1]	= CellPartition.BOTTOM_Y;
+			box[2]	= AreaIndex.globalZ(chunkZ, 0);
+			box[3]	= AreaIndex.globalX(chunkX, AreaIndex.chunkSizeX - 1);
+			box[4]	= CellPartition.TOP_Y;
+			box[5]	= AreaIndex.globalZ(chunkZ, AreaIndex.chunkSizeZ - 1);
+		}
+		else
+			return false;
+		// large areas are not in the partition: the box must not be crossed by any of them
+		for (ProtArea area : areaIndex.getLargeAreas())
+			if (area.crossesBox(box[0], box[1], box[2], box[3], box[4], box[5]))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Gets the permissions for a block from the areas containing it, given the player
+	 * data they depend on.
+	 * <p>The areas of the chunk column are looked up in their decomposition into
+	 * disjoint boxes (see CellPartition), with pre-combined permissions; if the
+	 * column has too many areas to be partitioned, they are scanned one by one.
+	 * @param	areaIndex	the spatial index of the areas, from a registry snapshot
+	 * @param	chunkX		the X coordinate of the chunk containing the block
+	 * @param	chunkY		the Y coordinate of the chunk containing the block
+	 * @param	chunkZ		the Z coordinate of the chunk containing the block
+	 * @param	x			the X global block coordinate
+	 * @param	y			the Y global block coordinate
+	 * @param	z			the Z global block coordinate
+	 * @param	playerPerms	the player-specific area permissions (may be null)
+	 * @param	groupId		the id of the player permission group (0 if none)
+	 * @param	cache		the player permission cache to store the result into (may be null)
+	 * @return	the permissions for the block.
+	 */
+	private static long getBlockPermissions(AreaIndex areaIndex, int chunkX, int chunkY, int chunkZ,
+			int x, int y, int z, IntLongMap playerPerms, int groupId, PermCache cache)
+	{
+		long					cumulPerm	= AreaProtection.PERM_ALL;			// permissions default to everything
+		boolean					inArea		= false;
+		// the chunk extent, to check whether the permissions are the same for the whole chunk
+		int						fromX		= AreaIndex.globalX(chunkX, 0);
+		int						fromY		= AreaIndex.globalY(chunkY, 0);
+		int						fromZ		= AreaIndex.globalZ(chunkZ, 0);
+		int						toX			= AreaIndex.globalX(chunkX, AreaIndex.chunkSizeX - 1);
+		int						toY			= AreaIndex.globalY(chunkY, AreaIndex.chunkSizeY - 1);
+		int						toZ			= AreaIndex.globalZ(chunkZ, AreaIndex.chunkSizeZ - 1);
+		boolean					uniform		= true;
+		CellPartition			partition	= areaIndex.getPartition(chunkX, chunkZ);
+
+		if (partition != null)
+		{
+			// look the box containing the block up in the partition of the chunk column
+			int		cover	= partition.getCover(x, y, z);
+			if (cover != CellPartition.NO_COVER)
+			{
+				cumulPerm	|= partition.getPermissions(cover, playerPerms, groupId);
+				inArea		= true;
+			}
+			uniform		= partition.isUniform(fromY, toY);
+		}
+		else
+		{
+			// scan the areas listed by the spatial index for the block to collect those which contain it
+			for (ProtArea area : areaIndex.getChunkAreas(chunkX, chunkZ))
+			{
+				if (area.containsBlock(x, y, z))
+				{
+					cumulPerm	|= getAreaPermissions(area, playerPerms, groupId);
+					inArea		= true;
+				}
+				if (uniform && area.crossesBox(fromX, fromY, fromZ, toX, toY, toZ))
+					uniform		= false;
+			}
+		}
+		for (ProtArea area : areaIndex.getLargeAreas())
+		{
+			if (area.containsBlock(x, y, z))
+			{
+				cumulPerm	|= getAreaPermissions(area, playerPerms, groupId);
+				inArea		= true;
+			}
+			if (uniform && area.crossesBox(fromX, fromY, fromZ, toX, toY, toZ))
+				uniform		= false;
+		}
+		// permissions default to everything, if the block is in no area
+		long	perms	= inArea ? cumulPerm : AreaProtection.PERM_ALL;
+		if (cache != null && uniform)
+			cache.put(chunkX, chunkY, chunkZ, groupId, perms);
+		return perms;
+	}
+
 	private static void showAreaToPlayer(Player player, ProtArea area)
 	{
 		if (area.worldArea == null)
@@ -923,9 +1303,11 @@ public class Db
 	*/
 	private static void initAreas()
 	{
+		long	startTime	= System.nanoTime();
 		Server	server	= AreaProtection.plugin.getServer();
-		areas.clear();
-		try(ResultSet result = db.executeQuery("SELECT * FROM `areas` ORDER BY LOWER(`name`)"))
+		List<ProtArea>	loaded	= new ArrayList<>();
+		areaNames.clear();
+		try(ResultSet result = db.executeQuery("SELECT * FROM `areas`"))
 		{
 			while(result.next())
 			{
@@ -938,8 +1320,9 @@ public class Db
 				int		toZ		= result.getInt(7);
 				int		perm	= result.getInt(8);
 				String	name	= result.getString(9);
-				ProtArea	area	= new ProtArea(id, fromX, fromY, fromZ, toX, toY, toZ, name, perm);
-				areas.put(id, area);
+				ProtArea	area	= new ProtArea(id, fromX, fromY, fromZ, toX, toY, toZ, name, perm, false);
+				loaded.add(area);
+				areaNames.put(id, name);
 				server.addArea(area);
 			}
 			result.close();
@@ -948,48 +1331,104 @@ public class Db
 		{
 			//on errors, do nothing and simply use what we got.
 		}
+		registry.setAll(loaded);
+		// load player and group permissions for all areas at once
+		loadAllPlayerPermissions(SQL_SELECT_ALL_USERS, LIST_TYPE_PLAYER);
+		loadAllPlayerPermissions(SQL_SELECT_ALL_GROUPS, LIST_TYPE_GROUP);
+		// the group maps have been filled in place: build the group tables from them
+		for (ProtArea area : loaded)
+			area.setGroups(area.groups);
+		loadTime	= (System.nanoTime() - startTime) / 1000000;
+	}
+
+	/**
+	 * Loads the special permissions of all players / groups for all the areas
+	 * with a single query and distributes them to the loaded areas.
+	 * @param	sql		the query, returning area id, player / group id and permissions
+	 *					ordered by area id
+	 * @param	type	either LIST_TYPE_PLAYER or LIST_TYPE_GROUP
+	 */
+	private static void loadAllPlayerPermissions(String sql, int type)
+	{
+		try(ResultSet result = db.executeQuery(sql))
+		{
+			int			currAreaId	= 0;
+			IntLongMap	currPerms	= null;		// the permissions of the current area, null if no such area
+			while(result.next())
+			{
+				int		areaId	= result.getInt(1);
+				// as rows are ordered by area, look the area up only when it changes
+				if (currPerms == null || areaId != currAreaId)
+				{
+					ProtArea	area	= registry.snapshot().get(areaId);
+					currAreaId	= areaId;
+					currPerms	= area == null ? null : (type == LIST_TYPE_GROUP ? area.groups : area.players);
+					if (currPerms == null)		// rows of unknown areas (incl. managers) are skipped
+						continue;
+				}
+				// at load time the areas are not in use yet and their maps can be filled in place
+				currPerms.put(result.getInt(2), result.getLong(3));
+			}
+		}
+		catch(SQLException e)
+		{
+			//on errors, do nothing and simply use what we got.
+		}
 	}
 
 	/**
 		Returns the ProtArea matching the given rwArea or null if no defined ProtArea matches it.
 
+		<p>As the areas registered with the server are the ProtArea's themselves,
+		the area reported by events is normally one of them and is found by id.
+		Otherwise, only the areas the spatial index lists for the area start
+		position are compared with it.
+
 		@param	rwArea	the Area to match
 		@return	the matching ProtArea
 	*/
-	private static ProtArea matchArea(Area rwArea)
+	static ProtArea matchArea(Area rwArea)
 	{
-		for (Map.Entry<Integer,ProtArea> entry : areas.entrySet())
+		AreaRegistry.Snapshot	snapshot	= registry.snapshot();
+		if (rwArea instanceof ProtArea)
 		{
-			ProtArea	area	= entry.getValue();
-			if (area.equals(rwArea) )
+			ProtArea	area	= (ProtArea)rwArea;
+			if (snapshot.get(area.id) == area)
 				return area;
 		}
+		AreaIndex	index	= snapshot.index;
+		int			fromX, fromZ;
+		if (rwArea instanceof ProtArea)
+		{
+			fromX	= ((ProtArea)rwArea).minX;
+			fromZ	= ((ProtArea)rwArea).minZ;
+		}
+		else
+		{
+			Vector3f	from	= ChunkUtils.getGlobalPosition(rwArea.getStartChunkPosition(), rwArea.getStartBlockPosition());
+			fromX	= (int)Math.floor(from.x);
+			fromZ	= (int)Math.floor(from.z);
+		}
+		for (ProtArea area : index.getAreasAt(fromX, fromZ))
+			if (area.equals(rwArea) )
+				return area;
+		for (ProtArea area : index.getLargeAreas())
+			if (area.equals(rwArea) )
+				return area;
 		return null;
 	}
 
 	/**
-	 * Inserts a new area in the areas Map, sorting it alphabetically according to its name.
-	 * @param	area	the area to insert
+	 * Returns the DB id of a permission group.
+	 * @param	groupName	the name of the group (may be null)
+	 * @return	the group id or 0 if there is no such group.
 	 */
-	private static void insertNewArea(ProtArea area)
+	static int getGroupId(String groupName)
 	{
-		if (area == null || area.id < 1)
-			return;
-		LinkedHashMap<Integer,ProtArea>		newAreaMap	= new LinkedHashMap<>();
-		for (Map.Entry<Integer,ProtArea> entry : areas.entrySet())
-		{
-			if (area != null && entry.getValue().name.compareToIgnoreCase(area.name) > 0)
-			{
-				newAreaMap.put(area.id, area);
-				area = null;
-			}
-			newAreaMap.put(entry.getKey(), entry.getValue());
-		}
-		// if area still defined, it doesn't go before any existing area
-		// (or no area exists!): just add it
-		if (area != null)
-			newAreaMap.put(area.id, area);
-		areas	= newAreaMap;
+		if (groupName == null || groupName.isEmpty() || groupIds == null)
+			return 0;
+		Integer	groupId	= groupIds.get(groupName);
+		return groupId != null ? groupId : 0;
 	}
 
 	private static void initGroups()
@@ -997,6 +1436,7 @@ public class Db
 
 		groupNames	= new HashMap<>();
 		groupIds	= new HashMap<>();
+		groupIndex.clear();
 
 		// retrieve group ID's already in DB
 		Map<String, Integer>	dbGroups	= new HashMap<>();
@@ -1034,10 +1474,9 @@ public class Db
 				Integer	id		= dbGroups.get(name);
 				if (id == null)				// such a perm. group not know yet: add to DB
 				{
-					try(PreparedStatement stmt	= db.getConnection().prepareStatement(
-						"INSERT INTO `perm_groups` (name) VALUES (?)")
-						)
+					try
 					{
+						PreparedStatement	stmt	= statements.get(SQL_INSERT_GROUP);
 						stmt.setString(1, name);
 						stmt.executeUpdate();
 						try (ResultSet idSet = stmt.getGeneratedKeys())
@@ -1054,27 +1493,12 @@ public class Db
 				{
 					groupNames.put(id, name);
 					groupIds.put(name, id);
+					groupIndex.put(id, name);
 				}
 			}
 		}
 	}
 
-	private static void initPlayers()
-	{
-		playerNames	= new LinkedHashMap<>();
-		// Query world data base for known players
-		WorldDatabase	worldDb = AreaProtection.plugin.getWorldDatabase();
-		try(ResultSet result = worldDb.executeQuery("SELECT `ID`,`Name` FROM `Player` ORDER BY LOWER(`Name`)"))
-		{
-			while(result.next())
-				playerNames.put(result.getInt(1), result.getString(2));
-		}
-		catch(SQLException e)
-		{
-			//on errors, do nothing and simply use what we got.
-		}
-	}
-
 	private static void AP3LUAImport()
 	{
 		String	path	= AreaProtection.plugin.getPath() + "/AreaProtection";
@@ -1130,7 +1554,7 @@ public class Db
 				// convert old LUA DB area ID into our area ID
 				Integer	newAreaId	= oldId2NewId.get(LUAAreaId);
 				// and retrieve corresponding area
-				ProtArea area		= areas.get(newAreaId);
+				ProtArea area		= newAreaId != null ? registry.snapshot().get(newAreaId) : null;
 				// if no such an area, ignore and go on with next right
 				if (area == null)
 					continue;
@@ -1166,41 +1590,15 @@ public class Db
 	/**
 	 * The player with the given DBID, if such a player exists and is connected;
 	 * null otherwise.
+	 * <p>Players are looked up in the index of connected players only, which
+	 * is filled when they connect (or spawn, in single player mode): the world
+	 * DB is never queried.
 	 * @param	dbId	the DB ID of the player to look for.
 	 * @return	the player with the given DB ID, if it exists and is connected;
 	 *			null if there is no such player or it is not connected now.
 	 */
 	private static Player connectedPlayerFromDBID(int dbId)
 	{
-		Player	player		= null;
-		Long	playerUID	= playerDBIDtoUID(dbId);
-		// if the player is connected right now, add the details to the player
-		// list of areas for which he has special permissions
-		if (playerUID != null)
-			player	= AreaProtection.plugin.getServer().getPlayer(playerUID);
-		return player;
-	}
-
-	/**
-	 * Returns the UID of a player from the player DBID.
-	 * @param	dbId	the player DBID to look upon.
-	 * @return	the UID of the player identified by the playerDBID or null if there
-	 *			there is no such player..
-	 */
-	private static Long playerDBIDtoUID(final int dbId)
-	{
-		Long	playerUID	= null;
-		// Query world data base for this player
-		WorldDatabase	worldDb = AreaProtection.plugin.getWorldDatabase();
-		try(ResultSet result = worldDb.executeQuery("SELECT `UID` FROM `Player` WHERE `ID` = " + dbId))
-		{
-			if(result.next())
-				playerUID	= result.getLong(1);
-		}
-		catch(SQLException e)
-		{
-			//on errors, do nothing and simply return null
-		}
-		return playerUID;
+		return connectedPlayers.get(dbId);
 	}
 }
@@ -0,0 +1,352 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	DbWriter.java - Writes DB changes in the background, in batched transactions.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package org.miwarre.ap;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A write-behind queue for the DB changes: changes are queued by the game
+ * thread, which does not wait for them, and written by a dedicated thread,
+ * with its own DB connection, in batched transactions.
+ * <p>Each change has a key identifying the DB row(s) it affects: a change
+ * replaces any pending change with the same key, so that only the last one
+ * is actually written, but keeps the place of the change it replaces, so that
+ * changes are written in the order their keys were first queued.
+ * <p>Keys are made of ':'-separated parts; a change with key "k" is expected
+ * to rewrite all the rows of any key "k:...", for instance "users:12" deleting
+ * all the rows of the area 12 and "users:12:34" replacing one of them. When a
+ * change is queued, any pending change with a key under its own is dropped, as
+ * it would be overwritten anyway; then no pending change can be written after
+ * a change with an overlapping key which was queued later.
+ * <p>The queue is bounded: when it is full, the queueing thread waits until
+ * the writer makes room; how often this happens is reported by getStats().
+ * <p>A batch which cannot be written (for instance because the DB is locked
+ * by the main connection for longer than BUSY_TIMEOUT) is retried up to
+ * MAX_ATTEMPTS times; if it still fails, its changes are written one by one,
+ * so that only the changes which fail on their own are lost.
+ * <p>The in-memory data are expected to be updated by the caller at the time
+ * of queueing; code reading back from the DB should call flush() first.
+ */
+class DbWriter extends Thread
+{
+	//
+	// CONSTANTS
+	//
+	static final	int		MAX_PENDING		= 1024;	// the max number of pending changes
+	static final	int		MAX_BATCH		= 256;	// the max number of changes written in a transaction
+	static final	int		BUSY_TIMEOUT	= 5000;	// how long to wait for a locked DB, in ms
+	static final	int		MAX_ATTEMPTS	= 3;	// how many times a failed batch is written
+	static final	int		RETRY_DELAY		= 1000;	// the wait before writing a failed batch again, in ms
+
+	//
+	// FIELDS
+	//
+	private final	Connection				conn;
+	private final	StatementCache			statements;	// used by the writer thread only
+	// the pending changes by key, in order of queueing
+	private final	Map<String,Change>		pending		= new LinkedHashMap<>();
+	private			boolean					writing		= false;	// whether a batch is being written
+	private			boolean					stopping	= false;
+	// statistics
+	private			long					numQueued	= 0;
+	private			long					numCoalesced= 0;
+	private			long					numWritten	= 0;
+	private			long					numBatches	= 0;
+	private			long					numRetries	= 0;		// how many times a batch was written again
+	private			long					numErrors	= 0;		// how many changes could not be written
+	private			long					numWaits	= 0;		// how many times the queue was full
+	private			int						maxPending	= 0;
+
+	/**
+	 * Creates the writer and opens its own connection to the DB file.
+	 * @param	dbPath	the full path of the DB file.
+	 * @throws	SQLException	if the DB cannot be opened.
+	 */
+	DbWriter(String dbPath) throws SQLException
+	{
+		super("AreaProtection DB writer");
+		conn	= DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+		// wait for the main connection to release the DB, rather than failing at once
+		try (Statement stmt = conn.createStatement())
+		{
+			stmt.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT);
+		}
+		conn.setAutoCommit(false);
+		statements	= new StatementCache(conn);
+		setDaemon(true);
+	}
+
+	//********************
+	// PACKAGE METHODS
+	//********************
+
+	/**
+	 * Queues a change, replacing any pending change with the same key.
+	 * <p>Once the writer is stopping, changes are no longer accepted: the
+	 * caller should then flush() and write the change by itself.
+	 * @param	key		the key identifying the DB row(s) affected by the change.
+	 * @param	sql		the SQL statement implementing the change, with '?' placeholders.
+	 * @param	params	the values of the placeholders.
+	 * @return	true if the change has been queued, false if the writer is stopping.
+	 */
+	synchronized boolean queue(String key, String sql, Object... params)
+	{
+		if (stopping || !isAlive())
+			return false;
+		// drop the pending changes which this change overwrites
+		String	prefix	= key + ":";
+		Iterator<String>	iter	= pending.keySet().iterator();
+		while (iter.hasNext())
+			if (iter.next().startsWith(prefix))
+			{
+				iter.remove();
+				numCoalesced++;
+			}
+		if (pending.containsKey(key))
+			numCoalesced++;
+		else
+		{
+			if (pending.size() >= MAX_PENDING)
+				numWaits++;
+			while (pending.size() >= MAX_PENDING && !stopping)
+			{
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+		}
+		// a change replacing a pending one keeps its place in the queue
+		pending.put(key, new Change(sql, params));
+		numQueued++;
+		maxPending	= Math.max(maxPending, pending.size());
+		notifyAll();
+		return true;
+	}
+
+	/**
+	 * Waits until all the changes queued so far have been written.
+	 */
+	synchronized void flush()
+	{
+		while ((!pending.isEmpty() || writing) && isAlive())
+		{
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Writes all the pending changes, stops the writer thread and closes its connection.
+	 */
+	void close()
+	{
+		synchronized(this)
+		{
+			stopping	= true;
+			notifyAll();
+		}
+		try {
+			join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		statements.close();
+		try {
+			conn.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Returns a printable summary of the writer statistics.
+	 * @return	the statistics as a text.
+	 */
+	synchronized String getStats()
+	{
+		return "DB writer: " + numQueued + " queued, " + numCoalesced + " coalesced, "
+				+ numWritten + " written in " + numBatches + " batches, " + numRetries + " retries, " + numErrors + " errors, "
+				+ pending.size() + " pending (max " + maxPending + "), " + numWaits + " waits on full queue";
+	}
+
+	@Override
+	public void run()
+	{
+		List<Change>	batch	= new ArrayList<>(MAX_BATCH);
+		while (true)
+		{
+			synchronized(this)
+			{
+				writing	= false;
+				notifyAll();					// wake up any flush() or queue() waiting for room
+				while (pending.isEmpty() && !stopping)
+				{
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						stopping	= true;
+					}
+				}
+				if (pending.isEmpty())			// stopping and nothing left to write
+					return;
+				Iterator<Change>	iter	= pending.values().iterator();
+				while (iter.hasNext() && batch.size() < MAX_BATCH)
+				{
+					batch.add(iter.next());
+					iter.remove();
+				}
+				writing	= true;
+				notifyAll();
+			}
+			writeWithRetries(batch);
+			batch.clear();
+		}
+	}
+
+	//********************
+	// PRIVATE HELPER METHODS
+	//********************
+
+	// Writes a batch of changes, retrying it if it fails; if it keeps failing,
+	// writes its changes one by one, dropping only those which fail on their own.
+	// The batch is not back in the queue meanwhile, so it is still written before
+	// any later change.
+	private void writeWithRetries(List<Change> batch)
+	{
+		for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++)
+		{
+			if (attempt > 1)
+			{
+				synchronized(this)
+				{
+					numRetries++;
+				}
+				try {
+					Thread.sleep(RETRY_DELAY);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			if (write(batch))
+				return;
+		}
+		for (Change change : batch)
+		{
+			if (!write(change))
+			{
+				synchronized(this)
+				{
+					numErrors++;
+				}
+			}
+		}
+	}
+
+	// Writes a batch of changes in a single transaction; returns true on success.
+	private boolean write(List<Change> batch)
+	{
+		try
+		{
+			for (Change change : batch)
+				execute(change);
+			conn.commit();
+			synchronized(this)
+			{
+				numWritten	+= batch.size();
+				numBatches++;
+			}
+			return true;
+		} catch (SQLException e)
+		{
+			e.printStackTrace();
+			rollback();
+			return false;
+		}
+	}
+
+	// Writes a single change in its own transaction; returns true on success.
+	private boolean write(Change change)
+	{
+		try
+		{
+			execute(change);
+			conn.commit();
+			synchronized(this)
+			{
+				numWritten++;
+			}
+			return true;
+		} catch (SQLException e)
+		{
+			e.printStackTrace();
+			rollback();
+			return false;
+		}
+	}
+
+	private void execute(Change change) throws SQLException
+	{
+		PreparedStatement	stmt	= statements.get(change.sql);
+		for (int i = 0; i < change.params.length; i++)
+			stmt.setObject(i + 1, change.params[i]);
+		stmt.executeUpdate();
+	}
+
+	private void rollback()
+	{
+		try {
+			conn.rollback();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * A single queued change: an SQL statement and its parameters.
+	 */
+	private static class Change
+	{
+		final	String		sql;
+		final	Object[]	params;
+
+		Change(String sql, Object[] params)
+		{
+			this.sql	= sql;
+			this.params	= params;
+		}
+	}
+}
@@ -132,11 +132,11 @@ class GuiAreaEdit extends GuiModalWindow
 		addChild(nameText, NAMETEXT_ID, null);
 
 		// if player is admin, he has access to all permissions
-		long	permMask	= (Boolean)player.getAttribute(AreaProtection.key_isAdmin) ? AreaProtection.PERM_ALL
+		long	permMask	= PlayerSession.isAdmin(player) ? AreaProtection.PERM_ALL
 				// otherwise, use standard permission mask
 				: Db.getPlayerPermissionsForArea(player, area.id);
 		// if editing and player is neither admin or owner, he can only manage players
-		if (type == TYPE_EDIT && !(Boolean)player.getAttribute(AreaProtection.key_isAdmin)
+		if (type == TYPE_EDIT && !PlayerSession.isAdmin(player)
 					&& (permMask & AreaProtection.PERM_OWNER) == 0)
 			permMask	&= AreaProtection.PERM_ADDPLAYER;
 
@@ -339,7 +339,7 @@ class GuiAreaEdit extends GuiModalWindow
 			ProtArea	newArea	= new ProtArea(extentFrom, extentTo, area.name, area.permissions);
 			newArea.id			= area.id;
 			newArea.players		= area.players;
-			newArea.groups		= area.groups;
+			newArea.setGroups(area.groups);
 			area	= newArea;
 		}
 	}
@@ -20,33 +20,45 @@ this plug-in.  If not, see <https://www.gnu.org/licenses/>.
 
 package org.miwarre.ap;
 
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.List;
 import org.miwarre.ap.gui.GuiDefs;
-import org.miwarre.ap.gui.GuiMenu;
+import org.miwarre.ap.gui.GuiGroupStatic;
+import org.miwarre.ap.gui.GuiModalWindow;
+import org.miwarre.ap.gui.GuiScrollList;
+import net.risingworld.api.gui.GuiLabel;
+import net.risingworld.api.gui.GuiTextField;
 import net.risingworld.api.objects.Player;
 
-class GuiAreaList extends GuiMenu
+/**
+ * A menu-like window listing the areas in name order, with a filter text
+ * field above the list: entering a text restricts the list to the areas whose
+ * name starts with it.
+ * <p>Matching areas are retrieved from the area name index a page at a time,
+ * as the list is scrolled, so that only the areas actually shown are looked at.
+ */
+class GuiAreaList extends GuiModalWindow
 {
 	private static final	int			MAX_NUM_OF_MENULINES	= 25;
+	private static final	int			FILTER_ID				= 0;	// area id's start from 1
+	private static final	int			MIN_FILTER_WIDTH		= 160;
 	private final	GuiDefs.GuiCallback	callback;
 	private			boolean				hasItems;
+	private final	NameIndex			areaNames;		// the names of the areas which can be listed
+	private final	AreaListPanel		panel;
 
 	public GuiAreaList(Player player, boolean ownedOnly, GuiDefs.GuiCallback callback)
 	{
-		super(AreaProtection.plugin, Msgs.msg[Msgs.gui_selectArea], null, MAX_NUM_OF_MENULINES);
+		super(AreaProtection.plugin, Msgs.msg[Msgs.gui_selectArea], GuiDefs.GROUPTYPE_NONE, 0, null);
 		setCallback(new MenuHandler());
 		this.callback	= callback;
-		hasItems		= false;
-		Map<Integer,ProtArea>	areas	= ownedOnly ? Db.getAreas() : Db.getOwnedAreas(player);
-		for (Entry<Integer,ProtArea> entry : areas.entrySet())
-		{
-			ProtArea	area	= entry.getValue();
-			addTextItem(area.getName()+" ("+AreaProtection.getAreaCentre(area)+")", entry.getKey(), entry.getValue());
-			hasItems	= true;
-		}
-		if (!hasItems)
-			addTextItem(Msgs.msg[ownedOnly ? Msgs.gui_noDefinedArea : Msgs.gui_noOwnedArea], 1, null);
+		areaNames		= ownedOnly ? Db.getAreaNames() : Db.getOwnedAreaNames(player);
+		panel			= new AreaListPanel();
+		setPanel(panel);
+		hasItems		= areaNames.size() > 0;
+		if (hasItems)
+			fillList(null);
+		else
+			panel.list.addTextItem(Msgs.msg[ownedOnly ? Msgs.gui_noDefinedArea : Msgs.gui_noOwnedArea], 1, null);
 	}
 
 	//********************
@@ -58,6 +70,16 @@ class GuiAreaList extends GuiMenu
 		@Override
 		public void onCall(Player player, int id, Object obj)
 		{
+			if (id == FILTER_ID)
+			{
+				// a new filter text has been entered: re-fill the list
+				if (obj != null && hasItems)
+				{
+					fillList((String)obj);
+					layout();
+				}
+				return;
+			}
 			if (id != GuiDefs.ABORT_ID)
 			{
 				pop(player);				// dismiss menu
@@ -69,4 +91,86 @@ class GuiAreaList extends GuiMenu
 		}
 	}
 
+	//********************
+	// PRIVATE HELPER METHODS
+	//********************
+
+	// Sets the list to the areas whose name starts with filter (ignoring case).
+	private void fillList(final String filter)
+	{
+		panel.list.setDataSource(new NameListSource()
+		{
+			@Override
+			int count()		{ return areaNames.count(filter);	}
+			@Override
+			List<NameIndex.Entry> fetch(NameIndex.Entry after, int limit)
+			{
+				return areaNames.getPage(filter, after, limit);
+			}
+			@Override
+			String textOf(NameIndex.Entry entry)
+			{
+				ProtArea	area	= Db.getAreaFromId(entry.id);
+				return area != null ? area.getName()+" ("+AreaProtection.getAreaCentre(area)+")" : entry.name;
+			}
+			@Override
+			Object dataOf(NameIndex.Entry entry)	{ return Db.getAreaFromId(entry.id);	}
+		});
+	}
+
+	//********************
+	// PANEL CLASS
+	//********************
+
+	/**
+	 * The main panel of the window: the filter label and text field, above the area list.
+	 */
+	private class AreaListPanel extends GuiGroupStatic
+	{
+		GuiLabel		filterLabel;
+		GuiTextField	filterText;
+		GuiScrollList	list;
+
+		AreaListPanel()
+		{
+			super(0);
+			setMargin(GuiDefs.DEFAULT_PADDING);
+			setPadding(GuiDefs.DEFAULT_PADDING);
+			filterLabel	= addTextItem(Msgs.msg[Msgs.gui_filter], null, null);
+			filterText	= new GuiTextField(0, 0, false, 0, GuiDefs.TEXTENTRY_HEIGHT, false);
+			addChild(filterText, FILTER_ID, null);
+			list		= new GuiScrollList(MAX_NUM_OF_MENULINES, false);
+			addChild(list, null, null);
+		}
+
+		/**
+		 * Arranges the elements inside the panel.
+		 * @param	minWidth	the minimum width required by the context within which the
+		 *						group is placed; use 0 if there no external constrains.
+		 * @param	minHeight	the minimum height required by the context within which the
+		 *						group is placed; use 0 if there no external constrains.
+		 */
+		@Override
+		public void layout(int minWidth, int minHeight)
+		{
+			int	margin		= getMargin();
+			int	padding		= getPadding();
+			list.layout(0, 0);
+			int	labelWidth	= (int)GuiDefs.getTextWidth(Msgs.msg[Msgs.gui_filter], GuiDefs.ITEM_SIZE);
+			int	width		= Math.max((int)list.getWidth(), labelWidth + padding + MIN_FILTER_WIDTH) + 2*margin;
+			if (minWidth > width)
+				width	= minWidth;
+			int	height		= (int)list.getHeight() + GuiDefs.TEXTENTRY_HEIGHT + padding + 2*margin;
+			if (minHeight > height)
+				height	= minHeight;
+			setSize(width, height, false);
+
+			height	-= margin;									// move below the top margin
+			filterLabel.setPosition(margin, height - (GuiDefs.TEXTENTRY_HEIGHT - GuiDefs.ITEM_SIZE) / 2, false);
+			filterText.setPosition(margin + labelWidth + padding, height, false);
+			filterText.setSize(width - 2*margin - labelWidth - padding, GuiDefs.TEXTENTRY_HEIGHT, false);
+			height	-= GuiDefs.TEXTENTRY_HEIGHT + padding;		// move below the filter
+			list.setPosition(margin, height, false);
+		}
+	}
 }
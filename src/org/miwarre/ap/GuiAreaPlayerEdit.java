@@ -20,7 +20,6 @@ this plug-in.  If not, see <https://www.gnu.org/licenses/>.
 
 package org.miwarre.ap;
 
-import java.util.Map;
 import org.miwarre.ap.gui.GuiDefs;
 import org.miwarre.ap.gui.GuiModalWindow;
 import org.miwarre.ap.gui.GuiTitleBar;
@@ -110,17 +109,16 @@ class GuiAreaPlayerEdit extends GuiModalWindow
 
 		// retrieve the permissions granted to the target player for this area
 		// (used to initialise the permission panel check boxes)
-		Map<Integer,Long>	areaPerms	=
+		IntLongMap	areaPerms	=
 				Db.getAllPlayerPermissionsForArea(area.id, type);
-		Long	areaPerm	= areaPerms.get(permPlayerId);
 		// if this player has no special permissions for this area,
 		// default to general area permissions
-		permissions	= (areaPerm == null) ? permissions	= area.permissions : areaPerm;
+		permissions	= areaPerms.get(permPlayerId, area.permissions);
 		// retrieve the permissions granted to the player doing the editing,
 		// (used to mask the permissions to which the editing player has no access)
 		long	permMask	= Db.getPlayerPermissionsForArea(editingPlayer, area.id);
 		// OWNERship permissions is not transferable
-		if (!(Boolean)editingPlayer.getAttribute(AreaProtection.key_isAdmin))
+		if (!PlayerSession.isAdmin(editingPlayer))
 		{
 			permissions	&= ~AreaProtection.PERM_OWNER;
 			permMask	&= ~AreaProtection.PERM_OWNER;
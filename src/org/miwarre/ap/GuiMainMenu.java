@@ -20,7 +20,6 @@ this plug-in.  If not, see <https://www.gnu.org/licenses/>.
 
 package org.miwarre.ap;
 
-import java.util.Map;
 import net.risingworld.api.gui.GuiLabel;
 import org.miwarre.ap.gui.GuiDefs;
 import org.miwarre.ap.gui.GuiDefs.GuiCallback;
@@ -59,11 +58,12 @@ class GuiMainMenu extends GuiMenu
 		// create and set the callback
 		setCallback(new MenuHandler());
 		// add the common menu items
-		addTextItem(Msgs.msg[(boolean)player.getAttribute(AreaProtection.key_areasShown) ?
+		PlayerSession	session	= PlayerSession.of(player);
+		addTextItem(Msgs.msg[session != null && session.areasShown ?
 				Msgs.gui_hideAreas : Msgs.gui_showAreas], MENU_SHOWAREAS_ID, null);
 		addTextItem(Msgs.msg[Msgs.gui_editArea],	MENU_EDITAREA_ID, null);
 		// add the admin-specific menu items, if required
-		if ( (Boolean)player.getAttribute(AreaProtection.key_isAdmin) || !AreaProtection.adminOnly)
+		if (session != null && session.isAdmin || !AreaProtection.adminOnly)
 		{
 			addTextItem(Msgs.msg[Msgs.gui_newArea],		MENU_NEWAREA_ID,		null);
 			addTextItem(Msgs.msg[Msgs.gui_gotoArea],		MENU_GOTOAREA_ID,		null);
@@ -109,11 +109,12 @@ class GuiMainMenu extends GuiMenu
 				push(player, new GuiAreaList(player, false, new GotoListHandler()));
 				break;
 			case MENU_EDITAREA_ID:
-				Map<Integer,Long> areas = (Map<Integer,Long>)player.getAttribute(AreaProtection.key_inAreas);
+				PlayerSession	session	= PlayerSession.of(player);
+				InAreas areas = session != null ? session.inAreas : null;
 				// if inside some area(s), jump to edit the first of them
 				if (areas != null && !areas.isEmpty())
 				{
-					ProtArea	area	= Db.getAreaFromId((int) areas.keySet().toArray()[0]);
+					ProtArea	area	= Db.getAreaFromId(areas.firstAreaId());
 					push(player, new GuiAreaEdit(null, area, player, GuiAreaEdit.TYPE_EDIT));
 				}
 				else
@@ -20,7 +20,6 @@ this plug-in.  If not, see <https://www.gnu.org/licenses/>.
 
 package org.miwarre.ap;
 
-import java.util.Map.Entry;
 import org.miwarre.ap.gui.GuiDefs;
 import org.miwarre.ap.gui.GuiDefs.GuiCallback;
 import org.miwarre.ap.gui.GuiGroupStatic;
@@ -157,14 +156,15 @@ class GuiPlayersEdit extends GuiModalWindow
 //					if (permissions != null)
 //					{
 						// OWNERship is not transferable
-						if (!(Boolean)player.getAttribute(AreaProtection.key_isAdmin))
+						if (!PlayerSession.isAdmin(player))
 							permissions	&= ~(AreaProtection.PERM_OWNER);
 						Db.addPlayerToArea(area, playerId, permissions, type);
 //					}
-					// add it to the shown list too
+					// add it to the shown list too, replacing it if it was already there
 					String	txt	= playerName;
 					if (type != Db.LIST_TYPE_MANAGERS)
 						txt += " (" + presetName + ")";
+					playerList.removeTextItem(playerId);
 					playerList.addTextItem(txt, playerId, playerName);
 					// remove the GuiTwoListsSelector dialogue box
 					playerSelector.pop(player);
@@ -189,7 +189,7 @@ class GuiPlayersEdit extends GuiModalWindow
 				long	permissions	= playerEditor.getPermissions();
 				// add the edited player name / permission pair to the DB
 				// OWNERship is not transferable
-				if (!(Boolean)player.getAttribute(AreaProtection.key_isAdmin))
+				if (!PlayerSession.isAdmin(player))
 					permissions	&= ~(AreaProtection.PERM_OWNER);
 				Db.addPlayerToArea(area, (Integer)permPlayerId, permissions, type);
 				String	txt	= playerEditor.getPlayerName() +
@@ -239,16 +239,16 @@ class GuiPlayersEdit extends GuiModalWindow
 			addChild(playerList, null, null);
 			playerList.setBorderThickness(1, false);
 			playerList.setMargin(GuiDefs.DEFAULT_PADDING);
-			for (Entry<Integer,Long> entry :
-				(type == Db.LIST_TYPE_GROUP ? area.groups : area.players).entrySet())
+			IntLongMap	perms	= (type == Db.LIST_TYPE_GROUP ? area.groups : area.players);
+			for (int pos = perms.next(0); pos >= 0; pos = perms.next(pos + 1))
 			{
-				int		playerId	= entry.getKey();
+				int		playerId	= perms.keyAt(pos);
 				String	playerName	= Db.getPlayerNameFromId(playerId, type);
 				if (playerName == null)
 					continue;
 				String	txt	= playerName;
 				if (type != Db.LIST_TYPE_MANAGERS)
-					txt	+= " (" + AreaProtection.getPresetNameFromPermissions(entry.getValue()) + ")";
+					txt	+= " (" + AreaProtection.getPresetNameFromPermissions(perms.valueAt(pos)) + ")";
 				playerList.addTextItem(txt, playerId, playerName);
 			}
 
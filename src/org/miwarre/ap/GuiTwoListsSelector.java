@@ -20,8 +20,8 @@ this plug-in.  If not, see <https://www.gnu.org/licenses/>.
 
 package org.miwarre.ap;
 
+import java.util.List;
 import java.util.Map.Entry;
-import java.util.Set;
 import org.miwarre.ap.gui.GuiDefs;
 import org.miwarre.ap.gui.GuiGroupStatic;
 import org.miwarre.ap.gui.GuiDefs.GuiCallback;
@@ -29,6 +29,7 @@ import org.miwarre.ap.gui.GuiModalWindow;
 import org.miwarre.ap.gui.GuiScrollList;
 import net.risingworld.api.Plugin;
 import net.risingworld.api.gui.GuiLabel;
+import net.risingworld.api.gui.GuiTextField;
 import net.risingworld.api.gui.PivotPosition;
 import net.risingworld.api.objects.Player;
 
@@ -39,11 +40,13 @@ class GuiTwoListsSelector extends GuiModalWindow
 	//
 	public static final	int		DOBUTTON_ID		= 2000000;
 	public static final	int		MIN_PRESET_ID	= 1000001;
+	private static final int	FILTER_ID		= 2000001;
 
 	//
 	// FIELDS
 	//
 	private final	GuiCallback		callerCallback;
+	private final	ProtArea		area;
 	private			GuiLabel		doButton;
 	private final	TwoListPanel	panel;
 	private			Integer			selId1, selId2;
@@ -56,10 +59,11 @@ class GuiTwoListsSelector extends GuiModalWindow
 		super(plugin, title, GuiDefs.GROUPTYPE_NONE, 0, null);
 		setCallback(new DlgHandler());
 		callerCallback	= callback;
+		this.area		= area;
 		selId1		= selId2 = null;
 		selText1	= "";
 		selText2	= "";
-		panel	= new TwoListPanel(area, maxLines, type);
+		panel	= new TwoListPanel(maxLines, type);
 		setPanel(panel);
 		this.type	= type;
 	}
@@ -111,6 +115,13 @@ class GuiTwoListsSelector extends GuiModalWindow
 			if (id == DOBUTTON_ID)
 			{
 				callerCallback.onCall(player, GuiDefs.OK_ID, null);
+				return;
+			}
+			// a new filter text has been entered: re-fill the player/group list
+			if (id == FILTER_ID && data != null)
+			{
+				panel.fillList1((String)data);
+				layout();
 			}
 		}
 	}
@@ -134,49 +145,35 @@ class GuiTwoListsSelector extends GuiModalWindow
 	 */
 	class TwoListPanel extends GuiGroupStatic
 	{
+		private final	int				listType;
 		GuiLabel		list1Head;
 		GuiLabel		list2Head;
+		GuiLabel		filterLabel;
+		GuiTextField	filterText;
 		GuiScrollList	list1;
 		GuiScrollList	list2;
 
-		public TwoListPanel(ProtArea area, int maxLines, int type)
+		public TwoListPanel(int maxLines, int type)
 		{
 			super(0);
+			listType	= type;
 			setMargin(GuiDefs.DEFAULT_PADDING);
 			// The list HEADINGS
 			list1Head	= addTextItem(
 					Msgs.msg[type == Db.LIST_TYPE_GROUP ? Msgs.gui_selectGroup : Msgs.gui_selectPlayer],
 					null, null);
 			list2Head	= addTextItem(type == Db.LIST_TYPE_MANAGERS ? "" : Msgs.msg[Msgs.gui_selectPreset], null, null);
+			// The FILTER for the player/group list
+			filterLabel	= addTextItem(Msgs.msg[Msgs.gui_filter], null, null);
+			filterText	= new GuiTextField(0, 0, false, 0, GuiDefs.TEXTENTRY_HEIGHT, false);
+			addChild(filterText, FILTER_ID, null);
 			// The PLAYER/GROUP LIST
 			list1	= new GuiScrollList(maxLines, true);
 			addChild(list1, null, null);
 			list1.setBorderThickness(1, false);
 			list1.setMargin(GuiDefs.DEFAULT_PADDING);
-			if (type == Db.LIST_TYPE_GROUP)
-			{
-				for (Entry<Integer,String> entry : Db.groupNames.entrySet())
-				{
-					int		groupId	= entry.getKey();
-					if (!area.groups.containsKey(groupId))
-					{
-						String	groupName	= entry.getValue();
-						list1.addTextItem(groupName, groupId, groupName);
-					}
-				}
-			}
-			else
-			{
-				Set<Integer> playerIds	= Db.getPlayerIdSet();
-				for (Integer id : playerIds)
-				{
-					if (!area.players.containsKey(id))
-					{
-						String	name	= Db.getPlayerNameFromId(id, type);
-						list1.addTextItem(name, id, name);
-					}
-				}
-			}
+			list1.setItemsWidth((int)GuiDefs.getTextWidth(list1Head.getText(), GuiDefs.ITEM_SIZE));
+			fillList1(null);
 			// The PRESET LIST
 			list2	= new GuiScrollList(maxLines, true);
 			addChild(list2, null, null);
@@ -229,8 +226,8 @@ class GuiTwoListsSelector extends GuiModalWindow
 			int	width		= (int)(list1.getWidth()+list2.getWidth()) + 2*margin;
 			if (minWidth > width)
 				width	= minWidth;
-			int	height		= (int)list1.getHeight() + 4*GuiDefs.ITEM_SIZE + 2*padding + 2*margin;
-//						the height of the player list	headings & button	paddings
+			int	height		= (int)list1.getHeight() + 4*GuiDefs.ITEM_SIZE + GuiDefs.TEXTENTRY_HEIGHT + 3*padding + 2*margin;
+//						the height of the player list	headings & button	filter			paddings
 			if (minHeight > height)
 				height	= minHeight;
 			setSize(width, height, false);
@@ -243,6 +240,13 @@ class GuiTwoListsSelector extends GuiModalWindow
 			list2Head.setPosition(list2X, height, false);
 
 			height	-= GuiDefs.ITEM_SIZE + padding;				// move below the headings
+			int	labelWidth	= (int)GuiDefs.getTextWidth(Msgs.msg[Msgs.gui_filter], GuiDefs.ITEM_SIZE);
+			filterLabel.setPosition(list1X, height - (GuiDefs.TEXTENTRY_HEIGHT - GuiDefs.ITEM_SIZE) / 2, false);
+			filterText.setPosition(list1X + labelWidth + padding, height, false);
+			filterText.setSize(Math.max((int)list1.getWidth() - labelWidth - padding, GuiDefs.BUTTON_SIZE),
+					GuiDefs.TEXTENTRY_HEIGHT, false);
+
+			height	-= GuiDefs.TEXTENTRY_HEIGHT + padding;		// move below the filter
 			list1.setPosition(list1X, height, false);
 			list2.setPosition(list2X, height, false);
 
@@ -250,6 +254,46 @@ class GuiTwoListsSelector extends GuiModalWindow
 					+ (GuiDefs.ITEM_SIZE * 3) / 2;				// & to the middle of button
 			doButton   .setPosition(width/2, height, false);
 		}
+
+		/**
+		 * Sets the player/group list to the players/groups whose name starts
+		 * with the given filter text.
+		 * <p>Matching names are retrieved from the player directory or from the
+		 * group name index, in name order, a page at a time as the list is
+		 * scrolled. Players/groups already in the area lists are left out, as
+		 * selecting them again would silently replace their permissions.
+		 * @param	filter	the name prefix (ignoring case); null or empty for all the players/groups.
+		 */
+		void fillList1(final String filter)
+		{
+			if (listType == Db.LIST_TYPE_GROUP)
+			{
+				final NameIndex	groups	= Db.getGroupNameIndex();
+				list1.setDataSource(new NameListSource()
+				{
+					@Override
+					int count()		{ return groups.count(filter, area.groups);	}
+					@Override
+					List<NameIndex.Entry> fetch(NameIndex.Entry after, int limit)
+					{
+						return groups.getPage(filter, after, limit, area.groups);
+					}
+				});
+			}
+			else
+			{
+				list1.setDataSource(new NameListSource()
+				{
+					@Override
+					int count()		{ return Db.countPlayers(filter, area.players);	}
+					@Override
+					List<NameIndex.Entry> fetch(NameIndex.Entry after, int limit)
+					{
+						return Db.getPlayerPage(filter, after, limit, area.players);
+					}
+				});
+			}
+		}
 	}
 
 }
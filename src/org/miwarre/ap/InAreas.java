@@ -0,0 +1,157 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	InAreas.java - The areas a player is in, with their cumulated permissions.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package org.miwarre.ap;
+
+import net.risingworld.api.gui.GuiLabel;
+
+/**
+ * The areas a player is currently in, with the permissions the player has
+ * in each of them.
+ * <p>The cumulated (OR-ed) permissions are maintained incrementally, by
+ * counting for each permission bit how many of the areas grant it, so that
+ * entering or leaving an area does not require to scan all the others.
+ * <p>Similarly, the text listing the area names is only rebuilt when the
+ * areas change and is only sent to the player when it actually differs from
+ * the one last sent.
+ */
+class InAreas
+{
+	//
+	// FIELDS
+	//
+	private final	IntLongMap	areaPerms	= new IntLongMap();	// the areas and the player permissions for each
+	private final	int[]		bitCounts	= new int[Long.SIZE];// how many areas grant each permission bit
+	private			long		cumulPerm	= 0;				// the OR of the permissions of all the areas
+	private			String		names		= null;				// the cached joined area names, null if stale
+	private			String		shownText	= "";				// the text last sent to the player (the label starts empty)
+
+	//********************
+	// PACKAGE METHODS
+	//********************
+
+	boolean	isEmpty()					{ return areaPerms.isEmpty();			}
+	boolean	contains(int areaId)		{ return areaPerms.containsKey(areaId);	}
+	int		size()						{ return areaPerms.size();				}
+	/**
+	 * Returns the id of any of the areas; the set should not be empty.
+	 * @return	the id of an area.
+	 */
+	int		firstAreaId()				{ return areaPerms.keyAt(areaPerms.next(0));	}
+	/**
+	 * Returns the ids of all the areas.
+	 * @return	a new array with the area ids, in no specific order.
+	 */
+	int[]	areaIds()					{ return areaPerms.keys();				}
+
+	/**
+	 * Returns the OR of the player permissions of all the areas.
+	 * @return	the cumulated permissions or 0 if the player is in no area.
+	 */
+	long	getPermissions()			{ return cumulPerm;						}
+
+	/**
+	 * Adds an area or, if already present, replaces its permissions.
+	 * @param	areaId	the id of the area.
+	 * @param	perms	the player permissions for the area.
+	 */
+	void add(int areaId, long perms)
+	{
+		if (areaPerms.containsKey(areaId))
+			countBits(areaPerms.get(areaId, 0), -1);
+		else
+			names	= null;
+		areaPerms.put(areaId, perms);
+		countBits(perms, 1);
+	}
+
+	/**
+	 * Removes an area.
+	 * @param	areaId	the id of the area.
+	 * @return	true if the area was present, false otherwise.
+	 */
+	boolean remove(int areaId)
+	{
+		if (!areaPerms.containsKey(areaId))
+			return false;
+		countBits(areaPerms.get(areaId, 0), -1);
+		areaPerms.remove(areaId);
+		names	= null;
+		return true;
+	}
+
+	/**
+	 * Marks the area names as changed, for instance after an area has been renamed.
+	 */
+	void namesChanged()					{ names	= null;	}
+
+	/**
+	 * Sets the text of the player info label to the names of the areas, followed
+	 * by the given suffix, unless the label already displays that text.
+	 * @param	label	the label to update.
+	 * @param	suffix	the text to add after the area names (may be empty).
+	 */
+	void updateText(GuiLabel label, String suffix)
+	{
+		if (names == null)
+			names	= joinNames();
+		String	text	= suffix.isEmpty() ? names : names + suffix;
+		if (label != null && !text.equals(shownText))
+		{
+			label.setText(text);
+			shownText	= text;
+		}
+	}
+
+	//********************
+	// PRIVATE HELPER METHODS
+	//********************
+
+	// Adds delta to the counts of the bits set in perms and updates the cumulated permissions.
+	private void countBits(long perms, int delta)
+	{
+		while (perms != 0)
+		{
+			int		bit	= Long.numberOfTrailingZeros(perms);
+			perms		&= perms - 1;		// clear the lowest set bit
+			bitCounts[bit]	+= delta;
+			if (bitCounts[bit] > 0)
+				cumulPerm	|= 1L << bit;
+			else
+				cumulPerm	&= ~(1L << bit);
+		}
+	}
+
+	private String joinNames()
+	{
+		StringBuilder	text	= new StringBuilder();
+		for (int pos = areaPerms.next(0); pos >= 0; pos = areaPerms.next(pos + 1))
+		{
+			ProtArea	area	= Db.getAreaFromId(areaPerms.keyAt(pos));
+			String		name	= area != null ? area.getName() : null;	// the area name
+			if (name != null)
+			{
+				// chain names of areas the player is in
+				text.append(text.length() == 0 ? " " : "| ").append(name).append(' ');
+			}
+		}
+		return text.toString();
+	}
+}
@@ -0,0 +1,272 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	IntLongMap.java - A map from int keys to long values without boxing.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package org.miwarre.ap;
+
+import java.util.Arrays;
+
+/**
+ * A map from int keys (typically area, player or group id's) to long values
+ * (typically permissions), stored in primitive arrays with open addressing
+ * and linear probing, so that look-ups never allocate and never box keys
+ * or values.
+ * <p>The map is not synchronised.
+ */
+class IntLongMap
+{
+	//
+	// CONSTANTS
+	//
+	private static final	int		FREE_KEY		= 0;	// the key marking a free slot; key 0 is stored apart
+	private static final	int		MIN_CAPACITY	= 8;
+
+	//
+	// FIELDS
+	//
+	private			int[]		keys;
+	private			long[]		values;
+	private			int			mask;			// capacity - 1 (capacity is always a power of 2)
+	private			int			size;			// the number of keys, including key 0 if present
+	private			boolean		hasZeroKey;
+	private			long		zeroValue;
+
+	IntLongMap()
+	{
+		this(MIN_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty map able to hold expectedSize keys without growing.
+	 * @param	expectedSize	the expected number of keys.
+	 */
+	IntLongMap(int expectedSize)
+	{
+		int	capacity	= MIN_CAPACITY;
+		while (capacity < expectedSize * 2)
+			capacity	<<= 1;
+		allocate(capacity);
+	}
+
+	/**
+	 * Creates a copy of another map.
+	 * @param	other	the map to copy.
+	 */
+	IntLongMap(IntLongMap other)
+	{
+		keys		= other.keys.clone();
+		values		= other.values.clone();
+		mask		= other.mask;
+		size		= other.size;
+		hasZeroKey	= other.hasZeroKey;
+		zeroValue	= other.zeroValue;
+	}
+
+	//********************
+	// PACKAGE METHODS
+	//********************
+
+	int		size()			{ return size;		}
+	boolean	isEmpty()		{ return size == 0;	}
+
+	/**
+	 * Returns whether the map contains the given key.
+	 * @param	key	the key to look for.
+	 * @return	true if the key is in the map, false otherwise.
+	 */
+	boolean containsKey(int key)
+	{
+		if (key == FREE_KEY)
+			return hasZeroKey;
+		return slotOf(key) >= 0;
+	}
+
+	/**
+	 * Returns the value associated with key or defaultValue if the key is not in the map.
+	 * @param	key				the key to look for.
+	 * @param	defaultValue	the value to return if the key is not in the map.
+	 * @return	the value associated with key or defaultValue.
+	 */
+	long get(int key, long defaultValue)
+	{
+		if (key == FREE_KEY)
+			return hasZeroKey ? zeroValue : defaultValue;
+		int	slot	= slotOf(key);
+		return slot >= 0 ? values[slot] : defaultValue;
+	}
+
+	/**
+	 * Associates value with key, replacing any previous value.
+	 * @param	key		the key.
+	 * @param	value	the value.
+	 */
+	void put(int key, long value)
+	{
+		if (key == FREE_KEY)
+		{
+			if (!hasZeroKey)
+				size++;
+			hasZeroKey	= true;
+			zeroValue	= value;
+			return;
+		}
+		int	slot	= hash(key) & mask;
+		while (keys[slot] != FREE_KEY)
+		{
+			if (keys[slot] == key)
+			{
+				values[slot]	= value;
+				return;
+			}
+			slot	= (slot + 1) & mask;
+		}
+		keys[slot]		= key;
+		values[slot]	= value;
+		size++;
+		if (size * 2 > keys.length)
+			rehash(keys.length * 2);
+	}
+
+	/**
+	 * Removes key and its value from the map.
+	 * @param	key	the key to remove.
+	 * @return	true if the key was in the map, false otherwise.
+	 */
+	boolean remove(int key)
+	{
+		if (key == FREE_KEY)
+		{
+			if (!hasZeroKey)
+				return false;
+			hasZeroKey	= false;
+			size--;
+			return true;
+		}
+		int	slot	= slotOf(key);
+		if (slot < 0)
+			return false;
+		// shift back following keys of the same probe sequence, to leave no hole in it
+		int	next	= slot;
+		while (true)
+		{
+			next	= (next + 1) & mask;
+			int	nextKey	= keys[next];
+			if (nextKey == FREE_KEY)
+				break;
+			int	home	= hash(nextKey) & mask;
+			// move the key back only if its home slot is not cyclically within (slot, next]
+			if (slot <= next ? (home <= slot || home > next) : (home <= slot && home > next))
+			{
+				keys[slot]		= nextKey;
+				values[slot]	= values[next];
+				slot			= next;
+			}
+		}
+		keys[slot]	= FREE_KEY;
+		size--;
+		return true;
+	}
+
+	void clear()
+	{
+		Arrays.fill(keys, FREE_KEY);
+		hasZeroKey	= false;
+		size		= 0;
+	}
+
+	/**
+	 * Returns the position of the first entry at or after pos, to iterate
+	 * over the map without allocating; typical use:
+	 * <pre>
+	 * for (int pos = map.next(0); pos >= 0; pos = map.next(pos + 1))
+	 *     use(map.keyAt(pos), map.valueAt(pos));
+	 * </pre>
+	 * The map should not be modified during the iteration.
+	 * @param	pos	the position to start from (0 for the first entry).
+	 * @return	the position of the next entry or -1 if there are no more entries.
+	 */
+	int next(int pos)
+	{
+		for ( ; pos < keys.length; pos++)
+			if (keys[pos] != FREE_KEY)
+				return pos;
+		// key 0 is always the last one, at the position past the table end
+		return (pos == keys.length && hasZeroKey) ? pos : -1;
+	}
+
+	int		keyAt(int pos)		{ return pos < keys.length ? keys[pos] : FREE_KEY;		}
+	long	valueAt(int pos)	{ return pos < keys.length ? values[pos] : zeroValue;	}
+
+	/**
+	 * Returns the keys currently in the map, in no specific order.
+	 * @return	a new array with the keys.
+	 */
+	int[] keys()
+	{
+		int[]	result	= new int[size];
+		int		count	= 0;
+		if (hasZeroKey)
+			result[count++]	= FREE_KEY;
+		for (int key : keys)
+			if (key != FREE_KEY)
+				result[count++]	= key;
+		return result;
+	}
+
+	//********************
+	// PRIVATE HELPER METHODS
+	//********************
+
+	private int slotOf(int key)
+	{
+		int	slot	= hash(key) & mask;
+		int	k;
+		while ( (k=keys[slot]) != FREE_KEY)
+		{
+			if (k == key)
+				return slot;
+			slot	= (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	private static int hash(int key)
+	{
+		int	h	= key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private void allocate(int capacity)
+	{
+		keys	= new int[capacity];
+		values	= new long[capacity];
+		mask	= capacity - 1;
+	}
+
+	private void rehash(int newCapacity)
+	{
+		int[]	oldKeys		= keys;
+		long[]	oldValues	= values;
+		allocate(newCapacity);
+		size	= hasZeroKey ? 1 : 0;
+		for (int i = 0; i < oldKeys.length; i++)
+			if (oldKeys[i] != FREE_KEY)
+				put(oldKeys[i], oldValues[i]);
+	}
+}
@@ -29,6 +29,7 @@ import net.risingworld.api.events.EventMethod;
 import net.risingworld.api.events.Listener;
 import net.risingworld.api.events.player.PlayerCommandEvent;
 import net.risingworld.api.events.player.PlayerConnectEvent;
+import net.risingworld.api.events.player.PlayerDisconnectEvent;
 import net.risingworld.api.events.player.PlayerEnterAreaEvent;
 import net.risingworld.api.events.player.PlayerLeaveAreaEvent;
 import net.risingworld.api.events.player.PlayerObjectInteractionEvent;
@@ -65,9 +66,7 @@ import net.risingworld.api.gui.PivotPosition;
 import net.risingworld.api.objects.Player;
 import net.risingworld.api.objects.WorldItem;
 import net.risingworld.api.utils.Definitions.ObjectDefinition;
-import net.risingworld.api.utils.Utils.ChunkUtils;
 import net.risingworld.api.utils.Vector3f;
-import net.risingworld.api.utils.Vector3i;
 
 /**
  * Manages events for the plug-in.
@@ -104,16 +103,28 @@ class ListenerPlayer implements Listener
 	{
 //		System.out.println("Area Protection: PLAYER "+event.getPlayer().getName()+" CONNECTED!");
 		if (event.isNewPlayer())
-			Db.resetPlayers();
+			Db.addNewPlayer(event.getPlayer());
 		if (AreaProtection.plugin.getServer().getType() == Server.Type.DedicatedServer)
 		{
 			initPlayer(event.getPlayer());
 		}
 	}
 
+	/** Called by Rising World when the player disconnects from the world.
+
+		@param	event	the disconnect event
+	*/
+	@EventMethod
+	public void onPlayerDisconnect(PlayerDisconnectEvent event)
+	{
+		Db.unloadPlayer(event.getPlayer());
+	}
+
 	/** Called by Rising World when the player spawns into a world after connecting.
 		Currently necessary, because PlayerConnectEvent's are not generated in Single
 		Play mode and area data of players would remain uninitialised.
+		On a dedicated server, the permission group of the player is resolved
+		again, as the server may have changed it.
 
 		@param	event	the spawn event
 	*/
@@ -125,6 +136,8 @@ class ListenerPlayer implements Listener
 		{
 			initPlayer(event.getPlayer());
 		}
+		else
+			Db.updatePlayerGroup(event.getPlayer());
 	}
 
 
@@ -137,6 +150,8 @@ class ListenerPlayer implements Listener
 	{
 		String[]	cmd		= event.getCommand().split(" ");
 		Player		player	= event.getPlayer();
+		// the server reports no group change: take any command as a chance to catch one
+		Db.updatePlayerGroup(player);
 
 		switch (cmd[0])
 		{
@@ -159,7 +174,7 @@ class ListenerPlayer implements Listener
 				else if (cmd[1].regionMatches(0, "hideareas", 0, length))
 					Db.hideAreasToPlayer(player);
 				// other commands only available to admins OR if generally unrestricted
-				else if ( !(Boolean)player.getAttribute(AreaProtection.key_isAdmin) && AreaProtection.adminOnly)
+				else if ( !PlayerSession.isAdmin(player) && AreaProtection.adminOnly)
 					break;
 				else if (cmd[1].regionMatches(0, "newarea", 0, length))
 				{
@@ -196,6 +211,12 @@ class ListenerPlayer implements Listener
 				}
 				else if (cmd[1].regionMatches(0, "priv", 0, length))
 					flipAdminPriv();
+				else if (cmd[1].regionMatches(0, "stats", 0, length))
+				{
+					player.sendTextMessage(PermCache.getStats());
+					player.sendTextMessage(Db.getWriterStats());
+					player.sendTextMessage(Db.getAdaptiveStats(player));
+				}
 			}
 			break;
 		}
@@ -209,10 +230,11 @@ class ListenerPlayer implements Listener
 	{
 		// flip admin privileges
 		AreaProtection.adminNoPriv = !AreaProtection.adminNoPriv;
+		PermCache.invalidateAll();
 		// update admin text
 		for(Player pl : AreaProtection.plugin.getServer().getAllPlayers())
 		{
-			if ((boolean)pl.getAttribute(AreaProtection.key_isAdmin))
+			if (PlayerSession.isAdmin(pl))
 				Db.playerText(pl);
 		}
 		return AreaProtection.adminNoPriv;
@@ -243,18 +265,16 @@ class ListenerPlayer implements Listener
 	@EventMethod
 	public void onPlayerPlaceBlock(PlayerPlaceBlockEvent event)
 	{
-		Vector3f	eventPos	= ChunkUtils.getGlobalPosition(
-				new Vector3i(event.getChunkPositionX(), event.getChunkPositionY(), event.getChunkPositionZ()),
-				new Vector3i(event.getBlockPositionX(), event.getBlockPositionY(), event.getBlockPositionZ()));
-		onCancellableEvent(event, event.getPlayer(), AreaProtection.PERM_PLACEBLOCKS, eventPos);
+		onCancellableEvent(event, event.getPlayer(), AreaProtection.PERM_PLACEBLOCKS,
+				event.getChunkPositionX(), event.getChunkPositionY(), event.getChunkPositionZ(),
+				event.getBlockPositionX(), event.getBlockPositionY(), event.getBlockPositionZ());
 	}
 	@EventMethod
 	public void onPlayerDestroyBlock(PlayerDestroyBlockEvent event)
 	{
-		Vector3f	eventPos	= ChunkUtils.getGlobalPosition(
-				new Vector3i(event.getChunkPositionX(), event.getChunkPositionY(), event.getChunkPositionZ()),
-				new Vector3i(event.getBlockPositionX(), event.getBlockPositionY(), event.getBlockPositionZ()));
-		onCancellableEvent(event, event.getPlayer(), AreaProtection.PERM_DESTROYBLOCKS, eventPos);
+		onCancellableEvent(event, event.getPlayer(), AreaProtection.PERM_DESTROYBLOCKS,
+				event.getChunkPositionX(), event.getChunkPositionY(), event.getChunkPositionZ(),
+				event.getBlockPositionX(), event.getBlockPositionY(), event.getBlockPositionZ());
 	}
 
 	//
@@ -301,18 +321,16 @@ class ListenerPlayer implements Listener
 	@EventMethod
 	public void onPlayerPlaceTerrain(PlayerPlaceTerrainEvent event)
 	{
-		Vector3f	eventPos	= ChunkUtils.getGlobalPosition(
-				new Vector3i(event.getChunkPositionX(), event.getChunkPositionY(), event.getChunkPositionZ()),
-				new Vector3i(event.getBlockPositionX(), event.getBlockPositionY(), event.getBlockPositionZ()));
-		onCancellableEvent(event, event.getPlayer(), AreaProtection.PERM_PLACETERRAIN, eventPos);
+		onCancellableEvent(event, event.getPlayer(), AreaProtection.PERM_PLACETERRAIN,
+				event.getChunkPositionX(), event.getChunkPositionY(), event.getChunkPositionZ(),
+				event.getBlockPositionX(), event.getBlockPositionY(), event.getBlockPositionZ());
 	}
 	@EventMethod
 	public void onPlayerDestroyTerrain(PlayerDestroyTerrainEvent event)
 	{
-		Vector3f	eventPos	= ChunkUtils.getGlobalPosition(
-				new Vector3i(event.getChunkPositionX(), event.getChunkPositionY(), event.getChunkPositionZ()),
-				new Vector3i(event.getBlockPositionX(), event.getBlockPositionY(), event.getBlockPositionZ()));
-		onCancellableEvent(event, event.getPlayer(), AreaProtection.PERM_DESTROYTERRAIN, eventPos);
+		onCancellableEvent(event, event.getPlayer(), AreaProtection.PERM_DESTROYTERRAIN,
+				event.getChunkPositionX(), event.getChunkPositionY(), event.getChunkPositionZ(),
+				event.getBlockPositionX(), event.getBlockPositionY(), event.getBlockPositionZ());
 	}
 
 	//
@@ -343,18 +361,16 @@ class ListenerPlayer implements Listener
 	@EventMethod
 	public void onPlayerPlaceGrass(PlayerPlaceGrassEvent event)
 	{
-		Vector3f	eventPos	= ChunkUtils.getGlobalPosition(
-				new Vector3i(event.getChunkPositionX(), event.getChunkPositionY(), event.getChunkPositionZ()),
-				new Vector3i(event.getBlockPositionX(), event.getBlockPositionY(), event.getBlockPositionZ()));
-		onCancellableEvent(event, event.getPlayer(), AreaProtection.PERM_PLACEGRASS, eventPos);
+		onCancellableEvent(event, event.getPlayer(), AreaProtection.PERM_PLACEGRASS,
+				event.getChunkPositionX(), event.getChunkPositionY(), event.getChunkPositionZ(),
+				event.getBlockPositionX(), event.getBlockPositionY(), event.getBlockPositionZ());
 	}
 	@EventMethod
 	public void onPlayerRemoveGrass(PlayerRemoveGrassEvent event)
 	{
-		Vector3f	eventPos	= ChunkUtils.getGlobalPosition(
-				new Vector3i(event.getChunkPositionX(), event.getChunkPositionY(), event.getChunkPositionZ()),
-				new Vector3i(event.getBlockPositionX(), event.getBlockPositionY(), event.getBlockPositionZ()));
-		onCancellableEvent(event, event.getPlayer(), AreaProtection.PERM_REMOVEGRASS, eventPos);
+		onCancellableEvent(event, event.getPlayer(), AreaProtection.PERM_REMOVEGRASS,
+				event.getChunkPositionX(), event.getChunkPositionY(), event.getChunkPositionZ(),
+				event.getBlockPositionX(), event.getBlockPositionY(), event.getBlockPositionZ());
 	}
 
 	//
@@ -363,18 +379,16 @@ class ListenerPlayer implements Listener
 	@EventMethod
 	public void onPlayerRemoveWater(PlayerRemoveWaterEvent event)
 	{
-		Vector3f	eventPos	= ChunkUtils.getGlobalPosition(
-				new Vector3i(event.getChunkPositionX(), event.getChunkPositionY(), event.getChunkPositionZ()),
-				new Vector3i(event.getBlockPositionX(), event.getBlockPositionY(), event.getBlockPositionZ()));
-		onCancellableEvent(event, event.getPlayer(), AreaProtection.PERM_REMOVEWATER, eventPos);
+		onCancellableEvent(event, event.getPlayer(), AreaProtection.PERM_REMOVEWATER,
+				event.getChunkPositionX(), event.getChunkPositionY(), event.getChunkPositionZ(),
+				event.getBlockPositionX(), event.getBlockPositionY(), event.getBlockPositionZ());
 	}
 	@EventMethod
 	public void onPlayerPlaceWater(PlayerPlaceWaterEvent event)
 	{
-		Vector3f	eventPos	= ChunkUtils.getGlobalPosition(
-				new Vector3i(event.getChunkPositionX(), event.getChunkPositionY(), event.getChunkPositionZ()),
-				new Vector3i(event.getBlockPositionX(), event.getBlockPositionY(), event.getBlockPositionZ()));
-		onCancellableEvent(event, event.getPlayer(), AreaProtection.PERM_PLACEWATER, eventPos);
+		onCancellableEvent(event, event.getPlayer(), AreaProtection.PERM_PLACEWATER,
+				event.getChunkPositionX(), event.getChunkPositionY(), event.getChunkPositionZ(),
+				event.getBlockPositionX(), event.getBlockPositionY(), event.getBlockPositionZ());
 	}
 
 	//
@@ -401,10 +415,9 @@ class ListenerPlayer implements Listener
 	@EventMethod
 	public void onPlayerCreativePlaceBlock(PlayerCreativePlaceBlockEvent event)
 	{
-		Vector3f	eventPos	= ChunkUtils.getGlobalPosition(
-				new Vector3i(event.getChunkPositionX(), event.getChunkPositionY(), event.getChunkPositionZ()),
-				new Vector3i(event.getBlockPositionX(), event.getBlockPositionY(), event.getBlockPositionZ()));
-		onCancellableEvent(event, event.getPlayer(), AreaProtection.PERM_CREAT_PLACEBLOCKS, eventPos);
+		onCancellableEvent(event, event.getPlayer(), AreaProtection.PERM_CREAT_PLACEBLOCKS,
+				event.getChunkPositionX(), event.getChunkPositionY(), event.getChunkPositionZ(),
+				event.getBlockPositionX(), event.getBlockPositionY(), event.getBlockPositionZ());
 	}
 	@EventMethod
 	public void onPlayerCreativePlaceVegetation(PlayerCreativePlaceVegetationEvent event)
@@ -414,10 +427,9 @@ class ListenerPlayer implements Listener
 	@EventMethod
 	public void onPlayerCreativeTerrainEdit(PlayerCreativeTerrainEditEvent event)
 	{
-		Vector3f	eventPos	= ChunkUtils.getGlobalPosition(
-				new Vector3i(event.getChunkPositionX(), event.getChunkPositionY(), event.getChunkPositionZ()),
-				new Vector3i(event.getBlockPositionX(), event.getBlockPositionY(), event.getBlockPositionZ()));
-		onCancellableEvent(event, event.getPlayer(), AreaProtection.PERM_CREAT_TERRAINEDIT, eventPos);
+		onCancellableEvent(event, event.getPlayer(), AreaProtection.PERM_CREAT_TERRAINEDIT,
+				event.getChunkPositionX(), event.getChunkPositionY(), event.getChunkPositionZ(),
+				event.getBlockPositionX(), event.getBlockPositionY(), event.getBlockPositionZ());
 	}
 
 	//
@@ -485,17 +497,46 @@ class ListenerPlayer implements Listener
 	//
 	private void onCancellableEvent(Cancellable event, Player player, long permissionFlag, Vector3f eventPos)
 	{
-		if (!AreaProtection.adminNoPriv && (Boolean)player.getAttribute(AreaProtection.key_isAdmin))	// any permission is enabled
+		PlayerSession	session	= PlayerSession.of(player);
+		if (session == null || (!AreaProtection.adminNoPriv && session.isAdmin))	// any permission is enabled
+			return;
+		long	perms;
+		if (eventPos == null || AreaProtection.eventPos == AreaProtection.EVENTPOS_PLAYER)
+			perms	= session.areaPerms;
+		else if (AreaProtection.eventPos == AreaProtection.EVENTPOS_ADAPTIVE)
+			perms	= Db.getAdaptivePermissionsForPoint(player, session, eventPos);
+		else
+			perms	= Db.getPlayerPermissionsForPoint(player, eventPos);
+		if ((perms & permissionFlag) == 0)
+			event.setCancelled(true);
+	}
+
+	// Matches a block event given in chunk coordinates with actual player permissions;
+	// nothing is allocated along this path, as it is taken by the most frequent events.
+	//
+	private void onCancellableEvent(Cancellable event, Player player, long permissionFlag,
+			int chunkX, int chunkY, int chunkZ, int blockX, int blockY, int blockZ)
+	{
+		PlayerSession	session	= PlayerSession.of(player);
+		if (session == null || (!AreaProtection.adminNoPriv && session.isAdmin))	// any permission is enabled
 			return;
-		Long	perms = (AreaProtection.eventPos && eventPos != null) ? Db.getPlayerPermissionsForPoint(player, eventPos)
-						: (Long)player.getAttribute(AreaProtection.key_areaPerms);
-		if (perms != null && (perms & permissionFlag) == 0)
+		long	perms;
+		if (AreaProtection.eventPos == AreaProtection.EVENTPOS_PLAYER)
+			perms	= session.areaPerms;
+		else if (AreaProtection.eventPos == AreaProtection.EVENTPOS_ADAPTIVE)
+			perms	= Db.getAdaptivePermissionsForBlock(player, session,
+					chunkX, chunkY, chunkZ, blockX, blockY, blockZ);
+		else
+			perms	= Db.getPlayerPermissionsForBlock(player, chunkX, chunkY, chunkZ, blockX, blockY, blockZ);
+		if ((perms & permissionFlag) == 0)
 			event.setCancelled(true);
 	}
 
 	private void initPlayer(Player player)
 	{
-		player.setAttribute(AreaProtection.key_areasShown, false);
+		// the session holding all the plug-in data of the player, released on disconnect
+		PlayerSession	session	= new PlayerSession(player);
+		player.setAttribute(AreaProtection.key_session, session);
 		// The label with the names of the areas
 		GuiLabel	info	= new GuiLabel("", AreaProtection.infoXPos, AreaProtection.infoYPos, false);
 		info.setColor(AreaProtection.infoBkgColour);
@@ -503,7 +544,7 @@ class ListenerPlayer implements Listener
 		info.setFontSize(INFO_FONT_SIZE);
 		info.setPivot(PivotPosition.BottomLeft);
 		player.addGuiElement(info);
-		player.setAttribute(AreaProtection.key_areasText, info);
+		session.areasText	= info;
 		Db.loadPlayer(player);
 	}
 }
@@ -91,8 +91,9 @@ class Msgs
 	static final int	gui_areaExtentTitle		= 78;
 	static final int	gui_selectArea			= 79;
 	static final int	gui_confirmAreaDelete	= 80;
+	static final int	gui_filter				= 81;
 
-	private static final int	LAST_TEXT	= gui_confirmAreaDelete;
+	private static final int	LAST_TEXT	= gui_filter;
 
 	//
 	// The default built-in texts, used as fall-back if no message file is found.
@@ -186,7 +187,8 @@ class Msgs
 			// other menu titles
 			"\"%s\" area extent",
 			"Select an Area",
-			"Are you sure you want to delete the area:"	// 80
+			"Are you sure you want to delete the area:",	// 80
+			"Filter:"
 	};
 
 	private static final	String		MSGS_FNAME	= "/locale/messages";
@@ -0,0 +1,239 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	NameIndex.java - A sorted index of names, for prefix searches.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package org.miwarre.ap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of named items (areas, groups, ...) by id, sorted by name
+ * ignoring case, which allows to enumerate the items whose name starts
+ * with a given prefix, a page at a time, without scanning all the others.
+ * <p>Items with the same name are sorted by id.
+ * <p>The items are kept in a sorted array, so that counting the items with
+ * a given prefix and finding the start of a page take O(log n); pages are
+ * enumerated by key, each page starting after the last item of the previous
+ * one. Adding, renaming and removing an item move the following items of the
+ * array, which is cheap for the few thousands of items of a world; a new or
+ * cleared index is only sorted at its first look-up, so that filling it, for
+ * instance with the areas loaded at start-up, moves no item at all.
+ */
+class NameIndex
+{
+	//
+	// FIELDS
+	//
+	private			List<Entry>				sorted	= null;				// the entries in name order, null if to sort
+	private final	Map<Integer,Entry>		byId	= new HashMap<>();	// the same entries, by id
+
+	//********************
+	// PACKAGE METHODS
+	//********************
+
+	int		size()						{ return byId.size();	}
+
+	void clear()
+	{
+		sorted	= null;
+		byId.clear();
+	}
+
+	/**
+	 * Returns the name of an item.
+	 * @param	id	the id of the item.
+	 * @return	the name of the item or null if no item has that id.
+	 */
+	String getName(int id)
+	{
+		Entry	entry	= byId.get(id);
+		return entry != null ? entry.name : null;
+	}
+
+	/**
+	 * Adds an item or, if already present, changes its name.
+	 * @param	id		the id of the item.
+	 * @param	name	the name of the item.
+	 */
+	void put(int id, String name)
+	{
+		if (name == null)
+			name	= "";
+		Entry	entry	= byId.get(id);
+		if (entry != null)
+		{
+			if (entry.name.equals(name))
+				return;
+			if (sorted != null)
+				sorted.remove(lowerBound(entry));
+		}
+		entry	= new Entry(id, name);
+		byId.put(id, entry);
+		if (sorted != null)
+			sorted.add(lowerBound(entry), entry);
+	}
+
+	/**
+	 * Removes an item.
+	 * @param	id	the id of the item.
+	 */
+	void remove(int id)
+	{
+		Entry	entry	= byId.remove(id);
+		if (entry != null && sorted != null)
+			sorted.remove(lowerBound(entry));
+	}
+
+	/**
+	 * Returns a page of the items whose name starts with the given prefix,
+	 * in name order (ignoring case).
+	 * @param	prefix	the name prefix (ignoring case); null or empty for all the items.
+	 * @param	after	the item after which the page starts, usually the last item of
+	 *					the previous page; null to start from the first item.
+	 * @param	limit	the max number of items to return.
+	 * @return	a list of the id's and names of the items; never null.
+	 */
+	List<Entry> getPage(String prefix, Entry after, int limit)
+	{
+		return getPage(prefix, after, limit, null);
+	}
+
+	/**
+	 * Returns a page of the items whose name starts with the given prefix,
+	 * in name order (ignoring case), leaving out the items with the given id's.
+	 * @param	prefix	the name prefix (ignoring case); null or empty for all the items.
+	 * @param	after	the item after which the page starts, usually the last item of
+	 *					the previous page; null to start from the first item.
+	 * @param	limit	the max number of items to return.
+	 * @param	exclude	the id's of the items to leave out, as the keys of the map; may be null.
+	 * @return	a list of the id's and names of the items; never null.
+	 */
+	List<Entry> getPage(String prefix, Entry after, int limit, IntLongMap exclude)
+	{
+		List<Entry>	entries	= sorted();
+		List<Entry>	page	= new ArrayList<>(Math.min(limit, entries.size()));
+		String		key		= prefix != null ? prefix.toLowerCase() : "";
+		int			pos		= lowerBound(new Entry(Integer.MIN_VALUE, key));
+		if (after != null)
+		{
+			int		afterPos	= lowerBound(after);
+			if (afterPos < entries.size() && entries.get(afterPos).compareTo(after) == 0)
+				afterPos++;
+			pos		= Math.max(pos, afterPos);
+		}
+		for ( ; pos < entries.size() && page.size() < limit; pos++)
+		{
+			Entry	entry	= entries.get(pos);
+			if (!entry.key.startsWith(key))
+				break;
+			if (exclude == null || !exclude.containsKey(entry.id))
+				page.add(entry);
+		}
+		return page;
+	}
+
+	/**
+	 * Returns the number of items whose name starts with the given prefix.
+	 * @param	prefix	the name prefix (ignoring case); null or empty for all the items.
+	 * @return	the number of matching items.
+	 */
+	int count(String prefix)
+	{
+		if (prefix == null || prefix.isEmpty())
+			return byId.size();
+		sorted();
+		String	key	= prefix.toLowerCase();
+		// all the keys starting with prefix sort between prefix itself and prefix followed by the highest char
+		return lowerBound(new Entry(Integer.MIN_VALUE, key + Character.MAX_VALUE))
+				- lowerBound(new Entry(Integer.MIN_VALUE, key));
+	}
+
+	/**
+	 * Returns the number of items whose name starts with the given prefix,
+	 * leaving out the items with the given id's.
+	 * @param	prefix	the name prefix (ignoring case); null or empty for all the items.
+	 * @param	exclude	the id's of the items to leave out, as the keys of the map; may be null.
+	 * @return	the number of matching items.
+	 */
+	int count(String prefix, IntLongMap exclude)
+	{
+		int		count	= count(prefix);
+		if (exclude == null)
+			return count;
+		String	key		= prefix != null ? prefix.toLowerCase() : "";
+		// the excluded items are usually few: subtract those matching the prefix
+		for (int pos = exclude.next(0); pos >= 0; pos = exclude.next(pos + 1))
+		{
+			Entry	entry	= byId.get(exclude.keyAt(pos));
+			if (entry != null && entry.key.startsWith(key))
+				count--;
+		}
+		return count;
+	}
+
+	//********************
+	// PRIVATE HELPER METHODS
+	//********************
+
+	// Returns the entries in name order, sorting them if needed.
+	private List<Entry> sorted()
+	{
+		if (sorted == null)
+		{
+			sorted	= new ArrayList<>(byId.values());
+			Collections.sort(sorted);
+		}
+		return sorted;
+	}
+
+	// Returns the position in sorted of entry or, if not there, of the first entry sorting after it.
+	private int lowerBound(Entry entry)
+	{
+		int		pos		= Collections.binarySearch(sorted, entry);
+		return pos >= 0 ? pos : -pos - 1;
+	}
+
+	/**
+	 * An item in the index: its id and its name.
+	 */
+	static class Entry implements Comparable<Entry>
+	{
+		final			int		id;
+		final			String	name;
+		private final	String	key;		// the lower-case name, the sort key
+
+		Entry(int id, String name)
+		{
+			this.id		= id;
+			this.name	= name;
+			key			= name != null ? name.toLowerCase() : "";
+		}
+
+		@Override
+		public int compareTo(Entry other)
+		{
+			int		result	= key.compareTo(other.key);
+			return result != 0 ? result : Integer.compare(id, other.id);
+		}
+	}
+}
@@ -0,0 +1,160 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	NameListSource.java - A scroll list data source retrieving names a page at a time.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package org.miwarre.ap;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.miwarre.ap.gui.GuiScrollList;
+
+/**
+ * A data source for a GuiScrollList listing named items (players, groups,
+ * areas, ...) which are retrieved a page at a time, from a NameIndex or from
+ * the DB, as the list scrolls: a list of thousands of names only ever holds
+ * one page of them.
+ * <p>Pages have a fixed size and are retrieved by key, each starting after
+ * the last item of the previous page, which is remembered: retrieving a page
+ * never skips over the items before it. Only jumping past the pages seen so
+ * far retrieves the pages in between, once.
+ * <p>The items are counted again, and the page retrieved again, each time the
+ * list asks for their number, i.e. each time it is refreshed or scrolled, so
+ * that items added or removed while the list is open are taken into account;
+ * if their number changed, the page ends remembered are forgotten. An item
+ * no longer available (the source shrank since it was last counted) has a
+ * null text, which makes the list count the items again.
+ * <p>Sub-classes define how to count and to retrieve the items; by default,
+ * the text and the data of each item are its name.
+ */
+abstract class NameListSource implements GuiScrollList.DataSource
+{
+	//
+	// CONSTANTS
+	//
+	static final	int		PAGE_SIZE	= 64;		// the number of items retrieved at a time
+
+	//
+	// FIELDS
+	//
+	private			int						numOfItems	= -1;	// the number of items last counted
+	private final	List<NameIndex.Entry>	pageEnds	= new ArrayList<>();	// the last item of each full page seen
+	private			int						pageNum		= 0;	// the number of the page last retrieved
+	private			List<NameIndex.Entry>	page		= null;	// the items last retrieved
+
+	//********************
+	// ABSTRACT METHODS
+	//********************
+
+	/**
+	 * Returns the number of items of the source.
+	 * @return	the number of items.
+	 */
+	abstract int count();
+
+	/**
+	 * Retrieves a page of items, in list order.
+	 * @param	after	the item after which the page starts; null to start from the first item.
+	 * @param	limit	the max number of items to retrieve.
+	 * @return	the id's and names of the items.
+	 */
+	abstract List<NameIndex.Entry> fetch(NameIndex.Entry after, int limit);
+
+	/**
+	 * Returns the text to display for an item.
+	 * @param	entry	the id and name of the item.
+	 * @return	the text of the item.
+	 */
+	String textOf(NameIndex.Entry entry)	{ return entry.name;	}
+
+	/**
+	 * Returns the data to report for an item, when it is clicked.
+	 * @param	entry	the id and name of the item.
+	 * @return	the data of the item.
+	 */
+	Object dataOf(NameIndex.Entry entry)	{ return entry.name;	}
+
+	//********************
+	// DATA SOURCE METHODS
+	//********************
+
+	@Override
+	public int size()
+	{
+		page	= null;				// the items may have changed since the page was retrieved
+		int		count	= count();
+		if (count != numOfItems)	// the pages may no longer end where they did
+		{
+			pageEnds.clear();
+			numOfItems	= count;
+		}
+		return count;
+	}
+
+	@Override
+	public String getText(int index)
+	{
+		NameIndex.Entry	entry	= getEntry(index);
+		return entry != null ? textOf(entry) : null;
+	}
+
+	@Override
+	public Integer getId(int index)
+	{
+		NameIndex.Entry	entry	= getEntry(index);
+		return entry != null ? entry.id : null;
+	}
+
+	@Override
+	public Object getData(int index)
+	{
+		NameIndex.Entry	entry	= getEntry(index);
+		return entry != null ? dataOf(entry) : null;
+	}
+
+	//********************
+	// PRIVATE HELPER METHODS
+	//********************
+
+	// Returns the item at index, retrieving its page if not the current page.
+	private NameIndex.Entry getEntry(int index)
+	{
+		int		num		= index / PAGE_SIZE;
+		if (page == null || num != pageNum)
+		{
+			page	= null;
+			// retrieve any page before this one whose end is not known yet
+			while (pageEnds.size() < num)
+				if (fetchPage(pageEnds.size()).size() < PAGE_SIZE)
+					return null;		// the source shrank
+			page	= fetchPage(num);
+			pageNum	= num;
+		}
+		int		i	= index - num * PAGE_SIZE;
+		return i < page.size() ? page.get(i) : null;
+	}
+
+	// Retrieves a page, given the end of the previous page, and remembers its end if full.
+	private List<NameIndex.Entry> fetchPage(int num)
+	{
+		List<NameIndex.Entry>	items	= fetch(num > 0 ? pageEnds.get(num - 1) : null, PAGE_SIZE);
+		if (num == pageEnds.size() && items.size() == PAGE_SIZE)
+			pageEnds.add(items.get(PAGE_SIZE - 1));
+		return items;
+	}
+}
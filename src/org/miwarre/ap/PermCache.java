@@ -0,0 +1,169 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	PermCache.java - A per-player cache of the permissions resolved for world chunks.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package org.miwarre.ap;
+
+/**
+ * A small, bounded cache of the permissions a player has been found to have
+ * in each world chunk, evicting the least recently used chunk when full.
+ * <p>Only permissions which are the same for every block of a chunk are
+ * cached, so that the chunk coordinates of an event are enough to retrieve
+ * them.
+ * <p>Any change to areas or permissions invalidates the caches of all the
+ * players at once, via a global generation counter (see invalidateAll()).
+ * Caches are also invalidated if the permission group of the player changes.
+ * <p>As the cache is expected to be small (a few tens of chunks), entries are
+ * stored in plain arrays and searched linearly.
+ */
+class PermCache
+{
+	//
+	// FIELDS
+	//
+	// the global generation of the area and permission data; caches of a previous generation are stale;
+	// volatile, as partitions check it from the box query worker threads (see CellPartition.getMasks())
+	private static volatile	int	generation	= 0;
+	// global statistics
+	private static	long		hits		= 0;
+	private static	long		misses		= 0;
+
+	private	final	long[]		keys;		// the packed chunk coordinates of each entry
+	private	final	long[]		perms;		// the permissions of each entry
+	private	final	int[]		lastUse;	// the time of last use of each entry
+	private			int			size;		// the number of used entries
+	private			int			time;		// the time of last use of any entry
+	private			int			cacheGeneration;
+	private			int			groupId;	// the id of the player permission group the entries refer to
+
+	/**
+	 * Creates an empty cache.
+	 * @param	capacity	the max number of chunks the cache can hold.
+	 */
+	PermCache(int capacity)
+	{
+		capacity		= Math.max(capacity, 1);
+		keys			= new long[capacity];
+		perms			= new long[capacity];
+		lastUse			= new int[capacity];
+		cacheGeneration	= generation;
+	}
+
+	//********************
+	// PACKAGE METHODS
+	//********************
+
+	/**
+	 * Invalidates the caches of all the players; to be called whenever any area
+	 * or any permission changes.
+	 */
+	static void invalidateAll()		{ generation++;	}
+
+	static int getGeneration()		{ return generation;	}
+	static long getHits()			{ return hits;		}
+	static long getMisses()			{ return misses;	}
+
+	/**
+	 * Returns a printable summary of the cache statistics.
+	 * @return	the statistics as a text.
+	 */
+	static String getStats()
+	{
+		long	lookups	= hits + misses;
+		return "Perm. cache: " + hits + " hits, " + misses + " misses ("
+				+ (lookups > 0 ? hits * 100 / lookups : 0) + "% hits)";
+	}
+
+	/**
+	 * Looks the permissions for a chunk up.
+	 * @param	chunkX		the X coordinate of the chunk
+	 * @param	chunkY		the Y coordinate of the chunk
+	 * @param	chunkZ		the Z coordinate of the chunk
+	 * @param	groupId		the id of the current permission group of the player (0 if none)
+	 * @return	the index of the entry for the chunk (to use with getPerms()) or -1 if the chunk is not cached.
+	 */
+	int find(int chunkX, int chunkY, int chunkZ, int groupId)
+	{
+		validate(groupId);
+		long	key	= chunkKey(chunkX, chunkY, chunkZ);
+		for (int i = 0; i < size; i++)
+		{
+			if (keys[i] == key)
+			{
+				lastUse[i]	= ++time;
+				hits++;
+				return i;
+			}
+		}
+		misses++;
+		return -1;
+	}
+
+	long getPerms(int index)		{ return perms[index];	}
+
+	/**
+	 * Stores the permissions for a chunk, evicting the least recently used
+	 * chunk if the cache is full.
+	 * <p>The chunk is assumed not to be already in the cache; find() should
+	 * be called first.
+	 * @param	chunkX		the X coordinate of the chunk
+	 * @param	chunkY		the Y coordinate of the chunk
+	 * @param	chunkZ		the Z coordinate of the chunk
+	 * @param	groupId		the id of the current permission group of the player (0 if none)
+	 * @param	permissions	the permissions of the player for every block of the chunk
+	 */
+	void put(int chunkX, int chunkY, int chunkZ, int groupId, long permissions)
+	{
+		validate(groupId);
+		int		index	= size;
+		if (size < keys.length)
+			size++;
+		else
+		{
+			index	= 0;
+			for (int i = 1; i < size; i++)
+				if (lastUse[i] - lastUse[index] < 0)	// wrap-around safe comparison
+					index	= i;
+		}
+		keys[index]		= chunkKey(chunkX, chunkY, chunkZ);
+		perms[index]	= permissions;
+		lastUse[index]	= ++time;
+	}
+
+	//********************
+	// PRIVATE HELPER METHODS
+	//********************
+
+	// Empties the cache if it belongs to a previous generation or to another player group.
+	private void validate(int groupId)
+	{
+		if (cacheGeneration != generation || groupId != this.groupId)
+		{
+			size			= 0;
+			cacheGeneration	= generation;
+			this.groupId	= groupId;
+		}
+	}
+
+	// Packs chunk coordinates into a single key: 24 bits for X and Z, 16 bits for Y.
+	private static long chunkKey(int chunkX, int chunkY, int chunkZ)
+	{
+		return ((chunkX & 0xFFFFFFL) << 40) | ((chunkY & 0xFFFFL) << 24) | (chunkZ & 0xFFFFFFL);
+	}
+}
@@ -0,0 +1,233 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	PlayerDirectory.java - Retrieves player names from the world DB on demand.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package org.miwarre.ap;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A directory of all the players known to the world, connected or not.
+ * <p>The (possibly very long) list of players is never loaded as a whole:
+ * players are enumerated by pages, optionally restricted to the names
+ * starting with a given prefix, directly from the world DB; single names
+ * are looked up by id and cached in a bounded cache.
+ * <p>Pages are retrieved by key, each starting after the last player of the
+ * previous page, so that the DB never reads the players before the page
+ * (with an index on the player names, it only reads the page itself). The
+ * number of players with a given prefix is cached until a new player joins.
+ */
+class PlayerDirectory
+{
+	//
+	// CONSTANTS
+	//
+	static final	int		MAX_CACHED_NAMES	= 1024;
+	private static final	String	SQL_SELECT_NAME		=
+			"SELECT `Name` FROM `Player` WHERE `ID` = ?";
+	private static final	String	SQL_SELECT_PAGE		=
+			"SELECT `ID`,`Name` FROM `Player` WHERE `Name` LIKE ? ESCAPE '\\'"
+			+ " AND (`Name` > ? COLLATE NOCASE OR (`Name` = ? COLLATE NOCASE AND `ID` > ?))"
+			+ " ORDER BY `Name` COLLATE NOCASE, `ID` LIMIT ?";
+	private static final	String	SQL_COUNT			=
+			"SELECT COUNT(*) FROM `Player` WHERE `Name` LIKE ? ESCAPE '\\'";
+
+	//
+	// FIELDS
+	//
+	private final	StatementCache			statements;		// the prepared statements of the world DB
+	private			String					countPrefix	= null;	// the prefix last counted, null if none
+	private			int						countValue	= 0;	// the number of players with countPrefix
+	// the names of recently used players, by DB id; accessed in LRU order and bounded
+	private final	Map<Integer,String>		names	=
+			new LinkedHashMap<Integer,String>(16, 0.75f, true)
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Integer,String> eldest)
+				{
+					return size() > MAX_CACHED_NAMES;
+				}
+			};
+
+	/**
+	 * Creates a directory reading from the world DB.
+	 * @param	statements	the statement cache of the world DB connection.
+	 */
+	PlayerDirectory(StatementCache statements)
+	{
+		this.statements	= statements;
+	}
+
+	//********************
+	// PACKAGE METHODS
+	//********************
+
+	/**
+	 * Returns the name of a player.
+	 * @param	playerId	the DB id of the player.
+	 * @return	the player name or null if no player has that id.
+	 */
+	String getName(int playerId)
+	{
+		String	name	= names.get(playerId);
+		if (name != null)
+			return name;
+		try
+		{
+			PreparedStatement	stmt	= statements.get(SQL_SELECT_NAME);
+			stmt.setInt(1, playerId);
+			try (ResultSet result = stmt.executeQuery())
+			{
+				if (result.next())
+				{
+					name	= result.getString(1);
+					names.put(playerId, name);
+				}
+			}
+		}
+		catch(SQLException e)
+		{
+			//on errors, do nothing and simply return null
+		}
+		return name;
+	}
+
+	/**
+	 * Adds a player to the directory, typically a new player who just connected.
+	 * @param	playerId	the DB id of the player.
+	 * @param	name		the player name.
+	 */
+	void add(int playerId, String name)
+	{
+		names.put(playerId, name);
+		countPrefix	= null;			// the counts include the new player
+	}
+
+	/**
+	 * Returns a page of the players whose name starts with the given prefix,
+	 * in name order (ignoring case); players with the same name are sorted by id.
+	 * @param	prefix	the name prefix (ignoring case); null or empty for all the players.
+	 * @param	after	the player after which the page starts, usually the last player of
+	 *					the previous page; null to start from the first player.
+	 * @param	limit	the max number of players to return.
+	 * @param	exclude	the DB id's of the players to leave out, as the keys of the map; may be null.
+	 * @return	a list of the DB id's and names of the players; never null.
+	 */
+	List<NameIndex.Entry> getPage(String prefix, NameIndex.Entry after, int limit, IntLongMap exclude)
+	{
+		List<NameIndex.Entry>	page		= new ArrayList<>(limit);
+		String					afterName	= after != null ? after.name : "";
+		int						afterId		= after != null ? after.id : Integer.MIN_VALUE;
+		try
+		{
+			PreparedStatement	stmt	= statements.get(SQL_SELECT_PAGE);
+			// excluded players leave the page short: read on from the last player read
+			int		numOfRows	= limit;
+			while (numOfRows == limit && page.size() < limit)
+			{
+				stmt.setString(1, toPattern(prefix));
+				stmt.setString(2, afterName);
+				stmt.setString(3, afterName);
+				stmt.setInt(4, afterId);
+				stmt.setInt(5, limit);
+				numOfRows	= 0;
+				try (ResultSet result = stmt.executeQuery())
+				{
+					while (result.next())
+					{
+						numOfRows++;
+						afterId		= result.getInt(1);
+						afterName	= result.getString(2);
+						if (afterName == null)
+							afterName	= "";
+						names.put(afterId, afterName);
+						if (page.size() < limit && (exclude == null || !exclude.containsKey(afterId)))
+							page.add(new NameIndex.Entry(afterId, afterName));
+					}
+				}
+			}
+		}
+		catch(SQLException e)
+		{
+			//on errors, do nothing and simply use what we got.
+		}
+		return page;
+	}
+
+	/**
+	 * Returns the number of players whose name starts with the given prefix.
+	 * @param	prefix	the name prefix (ignoring case); null or empty for all the players.
+	 * @param	exclude	the DB id's of the players to leave out, as the keys of the map; may be null.
+	 * @return	the number of matching players.
+	 */
+	int count(String prefix, IntLongMap exclude)
+	{
+		String	key		= prefix != null ? prefix.toLowerCase() : "";
+		if (!key.equals(countPrefix))
+		{
+			countValue	= 0;
+			try
+			{
+				PreparedStatement	stmt	= statements.get(SQL_COUNT);
+				stmt.setString(1, toPattern(prefix));
+				try (ResultSet result = stmt.executeQuery())
+				{
+					if (result.next())
+						countValue	= result.getInt(1);
+				}
+				countPrefix	= key;
+			}
+			catch(SQLException e)
+			{
+				//on errors, do nothing and simply return 0
+			}
+		}
+		int		count	= countValue;
+		if (exclude == null)
+			return count;
+		// the excluded players are usually few: subtract those matching the prefix
+		for (int pos = exclude.next(0); pos >= 0; pos = exclude.next(pos + 1))
+		{
+			String	name	= getName(exclude.keyAt(pos));
+			if (name != null && name.toLowerCase().startsWith(key))
+				count--;
+		}
+		return count;
+	}
+
+	//********************
+	// PRIVATE HELPER METHODS
+	//********************
+
+	// Converts a name prefix into a LIKE pattern, escaping LIKE special characters.
+	private static String toPattern(String prefix)
+	{
+		if (prefix == null)
+			return "%";
+		return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+	}
+}
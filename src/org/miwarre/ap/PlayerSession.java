@@ -0,0 +1,114 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	PlayerSession.java - The plug-in data of a connected player.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package org.miwarre.ap;
+
+import net.risingworld.api.gui.GuiLabel;
+import net.risingworld.api.objects.Player;
+
+/**
+ * The data the plug-in keeps for a connected player, in a single object
+ * stored as a player attribute: an event needs one attribute look-up to
+ * access all of them, as typed and primitive fields.
+ * <p>The session is created when the player connects (see
+ * ListenerPlayer.initPlayer()), filled by Db.loadPlayer() and released when
+ * the player disconnects (see Db.unloadPlayer()).
+ * <p>All fields are package-accessible for efficiency.
+ */
+class PlayerSession
+{
+	//
+	// FIELDS
+	//
+	boolean				isAdmin;							// whether the player is admin or area manager
+	final IntLongMap	areas		= new IntLongMap();		// the areas the player has special permissions for
+	long				areaPerms	= AreaProtection.PERM_ALL;	// the cumulated permissions of the areas the player is in
+	boolean				areasShown;							// whether areas are shown to the player
+	GuiLabel			areasText;							// the label with the names of the areas the player is in
+	final InAreas		inAreas		= new InAreas();		// the areas the player is in at the moment
+	final PermCache		permCache;							// the permissions resolved for recent chunks
+	// the box, in global block coordinates, around the last event position checked exactly in
+	// adaptive mode, in which the permissions are known to be the same as those of the player
+	// position, as long as areaPerms, the group and the area data do not change (see Db.getAdaptivePermissions())
+	final int[]			safeBox		= new int[6];			// min X, Y, Z and max X, Y, Z
+	boolean				safeBoxValid;
+	long				safeBoxPerms;
+	int					safeBoxGroupId;
+	int					safeBoxGeneration;
+	// how many events of the player were resolved from the player position or from the event position in adaptive mode
+	long				adaptiveFast;
+	long				adaptiveExact;
+	// the DB id of the player permission group (0 if none), resolved when the session is created
+	// and again when the group may have changed (see Db.updatePlayerGroup()), never by events
+	int					groupId;
+	private String		groupName;							// the name groupId was resolved from
+
+	/**
+	 * Creates the session of a player.
+	 * @param	player	the player.
+	 */
+	PlayerSession(Player player)
+	{
+		isAdmin		= player.isAdmin();
+		permCache	= new PermCache(AreaProtection.permCacheSize);
+		groupName	= player.getPermissionGroup();
+		groupId		= Db.getGroupId(groupName);
+	}
+
+	//********************
+	// PACKAGE METHODS
+	//********************
+
+	/**
+	 * Returns the session of a player.
+	 * @param	player	the player.
+	 * @return	the player session or null if the player has none (yet).
+	 */
+	static PlayerSession of(Player player)
+	{
+		return (PlayerSession)player.getAttribute(AreaProtection.key_session);
+	}
+
+	/**
+	 * Returns whether a player is an admin or an area manager.
+	 * @param	player	the player.
+	 * @return	true if admin or area manager, false if not or if the player has no session.
+	 */
+	static boolean isAdmin(Player player)
+	{
+		PlayerSession	session	= of(player);
+		return session != null && session.isAdmin;
+	}
+
+	/**
+	 * Resolves again the permission group of the player, updating groupId.
+	 * @param	player	the player of this session.
+	 * @return	true if the group changed, false otherwise.
+	 */
+	boolean updateGroup(Player player)
+	{
+		String	name	= player.getPermissionGroup();
+		if (name == groupName || name != null && name.equals(groupName))
+			return false;
+		groupName	= name;
+		groupId		= Db.getGroupId(name);
+		return true;
+	}
+}
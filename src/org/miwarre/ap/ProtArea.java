@@ -20,8 +20,6 @@ this plug-in.  If not, see <https://www.gnu.org/licenses/>.
 
 package org.miwarre.ap;
 
-import java.util.Map;
-import java.util.TreeMap;
 import net.risingworld.api.utils.Area;
 import net.risingworld.api.utils.Utils.ChunkUtils;
 import net.risingworld.api.utils.Vector3f;
@@ -31,38 +29,74 @@ import net.risingworld.api.worldelements.WorldArea;
 /**
  * A class wrapping the Rising World own Area class to add permission data.
  * <p>All fields are package-accessible for efficiency.
+ * <p>The fields which can change while the area is registered are volatile,
+ * so that permission look-ups running on other threads see their latest
+ * values; the players and groups maps of a registered area are never
+ * modified in place, but replaced by a modified copy (see Db.addPlayerToArea()).
  */
 public class ProtArea extends Area
 {
 	int					id;			// the persistent id of the PermArea
-	Map<Integer,Long>	groups;		// the groups with group-specific permissions for this area and their permissions
-	String				name;		// the name of the PermArea
-	long				permissions;// the default permissions (may be overridden by player-specific permissions)
-	Map<Integer,Long>	players;	// the players with player-specific permissions for this area and their permissions
+	volatile IntLongMap	groups;		// the groups with group-specific permissions for this area and their permissions (see setGroups())
+	volatile String		name;		// the name of the PermArea
+	volatile long		permissions;// the default permissions (may be overridden by player-specific permissions)
+	volatile IntLongMap	players;	// the players with player-specific permissions for this area and their permissions
 	WorldArea			worldArea;	// the associated WorldArea (i.e. the visualisation of the area span)
+	private volatile GroupTable	groupTable	= GroupTable.EMPTY;	// the same group permissions, by group id
+	// the area extent in global block coordinates (both ends included), computed once at creation
+	// (the extent of an area never changes: a new area is created instead)
+	final int			minX, minY, minZ, maxX, maxY, maxZ;
 
 	public ProtArea(Vector3f fromF, Vector3f toF)
 	{
-		super(fromF, toF);
-		initPlayers();
+		this(fromF, toF, 0, null, 0, true);
 	}
 
 	public ProtArea(int id, int fromX, int fromY, int fromZ, int toX, int toY, int toZ,
 			String name, long permissions)
 	{
-		super(new Vector3f(fromX, fromY, fromZ), new Vector3f(toX, toY, toZ));
-		this.id				= id;
-		this.name			= name;
-		this.permissions	= permissions;
-		initPlayers();
+		this(id, fromX, fromY, fromZ, toX, toY, toZ, name, permissions, true);
+	}
+
+	/**
+	 * Creates an area with the given id, optionally without loading its player and group
+	 * permissions from the DB, for when they are loaded for all the areas at once.
+	 * @param	loadPlayers	true to load the player and group permissions from the DB,
+	 *						false to start with no player and group permissions.
+	 */
+	ProtArea(int id, int fromX, int fromY, int fromZ, int toX, int toY, int toZ,
+			String name, long permissions, boolean loadPlayers)
+	{
+		this(new Vector3f(fromX, fromY, fromZ), new Vector3f(toX, toY, toZ), id, name, permissions, loadPlayers);
 	}
 
 	public ProtArea(Vector3f fromF, Vector3f toF, String name, long permissions)
+	{
+		this(fromF, toF, 0, name, permissions, true);
+	}
+
+	private ProtArea(Vector3f fromF, Vector3f toF, int id, String name, long permissions, boolean loadPlayers)
 	{
 		super(fromF, toF);
+		this.id				= id;
 		this.name			= name;
 		this.permissions	= permissions;
-		initPlayers();
+		// the only conversion from chunk and block positions to global coordinates for this area
+		Vector3f	from	= ChunkUtils.getGlobalPosition(getStartChunkPosition(), getStartBlockPosition());
+		Vector3f	to		= ChunkUtils.getGlobalPosition(getEndChunkPosition(), getEndBlockPosition());
+		minX	= (int)Math.min(from.x, to.x);
+		maxX	= (int)Math.max(from.x, to.x);
+		minY	= (int)Math.min(from.y, to.y);
+		maxY	= (int)Math.max(from.y, to.y);
+		minZ	= (int)Math.min(from.z, to.z);
+		maxZ	= (int)Math.max(from.z, to.z);
+		if (loadPlayers)
+			initPlayers();
+		else
+		{
+			players	= new IntLongMap();
+			setGroups(new IntLongMap());
+		}
 	}
 
 	public Extent	getExtent()						{	return new Extent(this);		}
@@ -73,17 +107,176 @@ public class ProtArea extends Area
 	public void setName(String newName)				{	name		= newName;			}
 	public void setPermissions(long newPermissions)	{	permissions	= newPermissions;	}
 
+	/**
+	 * Sets the group-specific permissions of the area; the map should not be
+	 * modified afterwards (to change it, set a modified copy).
+	 * @param	newGroups	the permissions by group id.
+	 */
+	void setGroups(IntLongMap newGroups)
+	{
+		groups		= newGroups;
+		groupTable	= new GroupTable(newGroups);
+	}
+
+	/**
+	 * Returns the permissions of the area for a group.
+	 * @param	groupId	the group id.
+	 * @return	the group-specific permissions, if any, or the default area permissions.
+	 */
+	long getGroupPermissions(int groupId)
+	{
+		return groupTable.get(groupId, permissions);
+	}
+
+	/**
+	 * Returns whether two boxes in global block coordinates (both ends included)
+	 * have any block in common.
+	 * <p>This is the comparison all the containment and intersection tests of areas
+	 * are based on. The differences between the ends of the two boxes are all
+	 * non-negative if and only if the boxes intersect, which is tested at once on
+	 * their bitwise OR, without branching on each coordinate. Coordinates are
+	 * assumed to be far from the int range limits, as world coordinates are.
+	 * @return	true if the boxes intersect, false if not.
+	 */
+	static boolean boxesIntersect(int aFromX, int aFromY, int aFromZ, int aToX, int aToY, int aToZ,
+			int bFromX, int bFromY, int bFromZ, int bToX, int bToY, int bToZ)
+	{
+		return ((aToX - bFromX) | (bToX - aFromX) | (aToY - bFromY) | (bToY - aFromY)
+				| (aToZ - bFromZ) | (bToZ - aFromZ)) >= 0;
+	}
+
+	/**
+	 * Returns whether the given global block position is within the area.
+	 * @param	x	the X global block coordinate
+	 * @param	y	the Y global block coordinate
+	 * @param	z	the Z global block coordinate
+	 * @return	true if the block position is within the area, false if not.
+	 */
+	boolean containsBlock(int x, int y, int z)
+	{
+		return boxesIntersect(minX, minY, minZ, maxX, maxY, maxZ, x, y, z, x, y, z);
+	}
+
+	/**
+	 * Returns whether the area has any block in common with the given box.
+	 * @param	fromX	the min. X global block coordinate of the box
+	 * @param	fromY	the min. Y global block coordinate of the box
+	 * @param	fromZ	the min. Z global block coordinate of the box
+	 * @param	toX		the max. X global block coordinate of the box
+	 * @param	toY		the max. Y global block coordinate of the box
+	 * @param	toZ		the max. Z global block coordinate of the box
+	 * @return	true if the area and the box intersect, false if not.
+	 */
+	boolean intersectsBox(int fromX, int fromY, int fromZ, int toX, int toY, int toZ)
+	{
+		return boxesIntersect(minX, minY, minZ, maxX, maxY, maxZ, fromX, fromY, fromZ, toX, toY, toZ);
+	}
+
+	/**
+	 * Returns whether the area has any block in common with another area.
+	 * @param	other	the other area
+	 * @return	true if the two areas intersect, false if not.
+	 */
+	boolean intersectsArea(ProtArea other)
+	{
+		return boxesIntersect(minX, minY, minZ, maxX, maxY, maxZ,
+				other.minX, other.minY, other.minZ, other.maxX, other.maxY, other.maxZ);
+	}
+
+	/**
+	 * Returns whether the area has the same extent as another area.
+	 * @param	other	the other area
+	 * @return	true if the two areas cover the same blocks, false if not.
+	 */
+	boolean sameExtent(ProtArea other)
+	{
+		return ((minX ^ other.minX) | (minY ^ other.minY) | (minZ ^ other.minZ)
+				| (maxX ^ other.maxX) | (maxY ^ other.maxY) | (maxZ ^ other.maxZ)) == 0;
+	}
+
+	/**
+	 * Returns whether the area border crosses the given box, i.e. whether the box
+	 * is partly inside and partly outside of the area.
+	 * @param	fromX	the min. X global block coordinate of the box
+	 * @param	fromY	the min. Y global block coordinate of the box
+	 * @param	fromZ	the min. Z global block coordinate of the box
+	 * @param	toX		the max. X global block coordinate of the box
+	 * @param	toY		the max. Y global block coordinate of the box
+	 * @param	toZ		the max. Z global block coordinate of the box
+	 * @return	true if the box is neither entirely inside nor entirely outside the area.
+	 */
+	boolean crossesBox(int fromX, int fromY, int fromZ, int toX, int toY, int toZ)
+	{
+		// the box is inside the area if both its corners are
+		return intersectsBox(fromX, fromY, fromZ, toX, toY, toZ)
+				&& !(containsBlock(fromX, fromY, fromZ) && containsBlock(toX, toY, toZ));
+	}
+
 	private void initPlayers()
 	{
 		if (id != 0)
 		{
 			players	= Db.getAllPlayerPermissionsForArea(id, Db.LIST_TYPE_PLAYER);
-			groups	= Db.getAllPlayerPermissionsForArea(id, Db.LIST_TYPE_GROUP);
+			setGroups(Db.getAllPlayerPermissionsForArea(id, Db.LIST_TYPE_GROUP));
 		}
 		else
 		{
-			players	= new TreeMap<>();
-			groups	= new TreeMap<>();
+			players	= new IntLongMap();
+			setGroups(new IntLongMap());
+		}
+	}
+
+	/**
+	 * The group-specific permissions of an area as dense arrays indexed by group
+	 * id, so that looking the permissions of a group up is a plain array read:
+	 * group ids are DB row ids, with one row per server permission group, and
+	 * are small and consecutive. Ids above MAX_DENSE_ID, if any, are looked up
+	 * in a map instead. Tables are never modified once built.
+	 */
+	static final class GroupTable
+	{
+		static final	int			MAX_DENSE_ID	= 1024;
+		static final	GroupTable	EMPTY			= new GroupTable(new IntLongMap());
+
+		private final	long[]		perms;		// the permissions by group id
+		private final	boolean[]	present;	// whether each group id has permissions
+		private final	IntLongMap	sparse;		// the permissions of the ids above MAX_DENSE_ID; null if none
+
+		GroupTable(IntLongMap groups)
+		{
+			int			maxId		= 0;
+			IntLongMap	beyond		= null;
+			for (int pos = groups.next(0); pos >= 0; pos = groups.next(pos + 1))
+			{
+				int		id		= groups.keyAt(pos);
+				if (id >= 0 && id <= MAX_DENSE_ID)
+					maxId	= Math.max(maxId, id);
+				else
+				{
+					if (beyond == null)
+						beyond	= new IntLongMap();
+					beyond.put(id, groups.valueAt(pos));
+				}
+			}
+			perms	= new long[maxId + 1];
+			present	= new boolean[maxId + 1];
+			sparse	= beyond;
+			for (int pos = groups.next(0); pos >= 0; pos = groups.next(pos + 1))
+			{
+				int		id		= groups.keyAt(pos);
+				if (id >= 0 && id <= MAX_DENSE_ID)
+				{
+					perms[id]	= groups.valueAt(pos);
+					present[id]	= true;
+				}
+			}
+		}
+
+		long get(int groupId, long defaultValue)
+		{
+			if (groupId >= 0 && groupId < perms.length)
+				return present[groupId] ? perms[groupId] : defaultValue;
+			return sparse != null ? sparse.get(groupId, defaultValue) : defaultValue;
 		}
 	}
 
@@ -107,6 +300,17 @@ public class ProtArea extends Area
 
 		public Extent(Area area)
 		{
+			if (area instanceof ProtArea)
+			{
+				ProtArea	protArea	= (ProtArea)area;
+				minX	= protArea.minX;
+				maxX	= protArea.maxX;
+				minY	= protArea.minY;
+				maxY	= protArea.maxY;
+				minZ	= protArea.minZ;
+				maxZ	= protArea.maxZ;
+				return;
+			}
 			area.rearrange();
 			Vector3f	from	= ChunkUtils.getGlobalPosition(area.getStartChunkPosition(), area.getStartBlockPosition());
 			Vector3f	to		= ChunkUtils.getGlobalPosition(area.getEndChunkPosition(), area.getEndBlockPosition());
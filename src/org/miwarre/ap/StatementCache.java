@@ -0,0 +1,87 @@
+/****************************
+	A r e a P r o t e c t i o n  -  A Rising World Java plug-in for area permissions.
+
+	StatementCache.java - A registry of the prepared statements of a DB connection.
+
+	Created by : agent 2026-10-18
+
+(C) Copyright 2018 Maurizio M. Gavioli (a.k.a. Miwarre)
+This Area Protection plug-in is licensed under the the terms of the GNU General
+Public License as published by the Free Software Foundation, either version 3 of
+the License, or (at your option) any later version.
+
+This Area Protection plug-in is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this plug-in.  If not, see <https://www.gnu.org/licenses/>.
+*****************************/
+
+package org.miwarre.ap;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Prepares each parameterised SQL statement only once for a connection and
+ * returns the same PreparedStatement each time it is requested again.
+ * <p>Statements returned by get() belong to the cache: callers should close
+ * their ResultSet's, but never the statements themselves.
+ * <p>A cache is meant to be used by a single thread at a time.
+ */
+class StatementCache
+{
+	//
+	// FIELDS
+	//
+	private final	Connection						conn;
+	private final	Map<String,PreparedStatement>	statements	= new HashMap<>();
+
+	StatementCache(Connection conn)
+	{
+		this.conn	= conn;
+	}
+
+	//********************
+	// PACKAGE METHODS
+	//********************
+
+	/**
+	 * Returns the prepared statement for the given SQL, preparing it on first use.
+	 * @param	sql	the SQL statement, with '?' placeholders.
+	 * @return	the prepared statement, with its parameters cleared.
+	 * @throws	SQLException	if the statement cannot be prepared.
+	 */
+	PreparedStatement get(String sql) throws SQLException
+	{
+		PreparedStatement	stmt	= statements.get(sql);
+		if (stmt == null)
+		{
+			stmt	= conn.prepareStatement(sql);
+			statements.put(sql, stmt);
+		}
+		else
+			stmt.clearParameters();
+		return stmt;
+	}
+
+	/**
+	 * Closes all the prepared statements; the connection is left open.
+	 */
+	void close()
+	{
+		for (PreparedStatement stmt : statements.values())
+		{
+			try {
+				stmt.close();
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+		statements.clear();
+	}
+}
@@ -43,6 +43,15 @@ import net.risingworld.api.objects.Player;
  * <p>With a variable height, the scroll list -- and the window it belongs to --
  * has to be laid out again, if the number of items changes after it has been
  * shown to a player. 
+ * <p>The list is virtual: the items are obtained from a DataSource, which
+ * by default is a list of the items added with addTextItem(), but can be
+ * any object able to return the number of items and each item by index,
+ * for instance retrieving them a page at a time from a DB. Only the items
+ * currently shown are requested from the source.
+ * <p>The list creates a fixed pool of GuiLabel's, one for each visible row,
+ * once and for all; scrolling or changing the items only re-assigns the
+ * texts of the rows and only the rows whose text or colour actually
+ * changes are updated on the player screen.
  */
 public class GuiScrollList extends GuiGroup
 {
@@ -53,13 +62,18 @@ public class GuiScrollList extends GuiGroup
 	//
 	// FIELDS
 	//
-	private			GuiLabel[]		guiItems;			// the visible items of the list
+	private			GuiLabel[]		guiItems;			// the pool of labels, one for each visible row
+	private final	String[]		shownTexts;			// the text currently set in each label
+	private final	int[]			shownColours;		// the font colour currently set in each label
 	private			GuiImage		buttonNext;			// the button to scroll down
 	private			GuiImage		buttonPrev;			// the button to scroll up
+	private			boolean			nextShown;			// whether buttonNext is currently visible
+	private			boolean			prevShown;			// whether buttonPrev is currently visible
 	private			int				firstItem;			// the index of the first shown item in the list of
 												// all the items;
 	private final	boolean			fixedHeight;		// if true, the height for max NumOfShownItem is always allocated
-	private final	List<Pair<String,Pair<Integer,Object>>>	items;	// the text items and their data
+	private final	List<Pair<String,Pair<Integer,Object>>>	items;	// the text items added with addTextItem() and their data
+	private			DataSource		source;				// where the items come from
 	private			int				itemsWidth;			// the max width of the shown items
 	private final	int				maxNumOfShownItems;	// the max number of items to show
 	private			int				numOfItems;			// total number of items in list
@@ -67,6 +81,39 @@ public class GuiScrollList extends GuiGroup
 	private			int				selectedItemId;		// the item id of the selected item, if any
 	private			int				shown;
 
+	/**
+	 * The source of the items of a list.
+	 * <p>Items are identified by their index, from 0 to size()-1; the
+	 * list only requests the items it actually shows.
+	 */
+	public interface DataSource
+	{
+		/**
+		 * Returns the number of items.
+		 * @return	the number of items.
+		 */
+		public int		size();
+		/**
+		 * Returns the text of an item.
+		 * @param	index	the index of the item.
+		 * @return	the text to display; null if the item no longer exists
+		 *			(the list then asks again for the number of items).
+		 */
+		public String	getText(int index);
+		/**
+		 * Returns the id of an item, reported by the click events on it.
+		 * @param	index	the index of the item.
+		 * @return	the id of the item.
+		 */
+		public Integer	getId(int index);
+		/**
+		 * Returns the data of an item, reported by the click events on it.
+		 * @param	index	the index of the item.
+		 * @return	the data of the item; may be null.
+		 */
+		public Object	getData(int index);
+	}
+
 	/**
 		Creates an empty scrollable list layout.
 		@param	maxSize		the max number of items to show
@@ -78,15 +125,32 @@ public class GuiScrollList extends GuiGroup
 		firstItem		= 0;
 		this.fixedHeight= fixedHeight;
 		guiItems		= new GuiLabel[maxNumOfShownItems];
+		shownTexts		= new String[maxNumOfShownItems];
+		shownColours	= new int[maxNumOfShownItems];
 		items			= new ArrayList<>();
+		source			= new ItemList();
 		itemsWidth		= 0;
 		numOfItems		= 0;
+		numOfShownItems	= 0;
 		selectedItemId	= SELECTED_ID_NONE;
 		shown			= 0;
 		setPivot(PivotPosition.TopLeft);
 		setColor(GuiDefs.PANEL_COLOUR);
 		setVisible(true);
 
+		// create the pool of row labels once and for all; rows beyond the items are left empty
+		for (int i = 0; i < maxNumOfShownItems; i++)
+		{
+			guiItems[i]	= new GuiLabel(0, 0, false);		// temporary position
+			guiItems[i].setPivot(PivotPosition.TopLeft);
+			guiItems[i].setFontSize(GuiDefs.ITEM_SIZE);
+			guiItems[i].setFontColor(GuiDefs.TEXT_COLOUR);
+			guiItems[i].setClickable(false);
+			shownTexts[i]	= "";
+			shownColours[i]	= GuiDefs.TEXT_COLOUR;
+			addChild(guiItems[i]);
+		}
+
 		// always create [Up] and [Down] arrows, but hide them until required
 		buttonNext	= new GuiImage(0, 0, false, GuiDefs.BUTTON_SIZE, GuiDefs.BUTTON_SIZE, false);
 		GuiDefs.setImage(buttonNext, GuiDefs.ICN_ARROW_DOWN);
@@ -132,14 +196,50 @@ public class GuiScrollList extends GuiGroup
 	 */
 	public GuiLabel selectItem(int id)
 	{
-		GuiLabel	label	= (GuiLabel)getChildFromId(selectedItemId);
-		if (label != null)
-			label.setFontColor(GuiDefs.TEXT_COLOUR);
 		selectedItemId	= id;
-		label	= (GuiLabel)getChildFromId(selectedItemId);
-		if (label != null)
-			label.setFontColor(GuiDefs.TEXT_SEL_COLOUR);
-		return label;
+		updateTexts();
+		return (GuiLabel)getChildFromId(selectedItemId);
+	}
+
+	/**
+	 * Sets the source the items of the list are taken from, replacing the
+	 * items added with addTextItem() (which are kept, but not shown), and
+	 * scrolls the list back to its top.
+	 * <p>The source is not asked for the widths of all its items: the list
+	 * is at least as wide as set with setItemsWidth() and as its widest item
+	 * shown at the time of layout.
+	 * <p>If the list has a variable height, it (and the window it belongs to)
+	 * should be laid out again, after the source has been changed.
+	 * @param	source	the new source of the items; null to return to
+	 *					the items added with addTextItem().
+	 */
+	public void setDataSource(DataSource source)
+	{
+		this.source	= (source != null ? source : new ItemList());
+		firstItem	= 0;
+		refresh();
+	}
+
+	/**
+	 * Sets the minimum width of the item area of the list (excluding margins
+	 * and arrow buttons); useful with data sources, whose items are not
+	 * all measured.
+	 * @param	width	the minimum width, in pixels.
+	 */
+	public void setItemsWidth(int width)
+	{
+		if (width > itemsWidth)
+			itemsWidth	= width;
+	}
+
+	/**
+	 * Updates the shown rows after the items of the data source have changed,
+	 * keeping the current scroll position if still valid.
+	 * <p>The list also refreshes itself when it is scrolled.
+	 */
+	public void refresh()
+	{
+		resize(source.size());
 	}
 
 	/**
@@ -167,27 +267,12 @@ public class GuiScrollList extends GuiGroup
 		Pair<String,Pair<Integer,Object>>	item	= new Pair<>(text, new Pair<>(id,data));
 		items.add(item);
 		// adjust panel width if new item is longer than current max item width (including left and right padding)
-		int		textWidth;
-		if ( (textWidth = (int)(GuiDefs.getTextWidth(text, GuiDefs.ITEM_SIZE)))
-				> itemsWidth)
-			itemsWidth = textWidth;
-		// if within the max number of items, create a new GuiLabel for the item
-		if (numOfItems < maxNumOfShownItems)
-		{
-			guiItems[numOfItems]	= new GuiLabel(0, 0, false);		// temporary position
-			guiItems[numOfItems].setPivot(PivotPosition.TopLeft);
-			guiItems[numOfItems].setFontSize(GuiDefs.ITEM_SIZE);
-			guiItems[numOfItems].setClickable(true);
-			addChild(guiItems[numOfItems]);
-			numOfShownItems++;											// one more shown item
-		}
-		numOfItems++;
+		setItemsWidth((int)GuiDefs.getTextWidth(text, GuiDefs.ITEM_SIZE));
 		// if the panel is already shown, update visible items
 		if (shown > 0)
-		{
-			// TODO : addGuiElement!
 			layout((int)getWidth(), (int)getHeight());
-		}
+		else
+			refresh();
 		return null;
 	}
 
@@ -199,24 +284,29 @@ public class GuiScrollList extends GuiGroup
 			if (item != null && item.getR().getL() == id)
 			{
 				items.remove(index);
-				if (numOfItems < maxNumOfShownItems)
-				{
-					numOfShownItems--;
-					guiItems[numOfItems-1].setText("");	// clear the last text
-				}
-				numOfItems--;
 				// if the panel is already shown, update visible items
 				if (shown > 0)
-				{
-					// TODO : removeGuiElement!
 					layout((int)getWidth(), (int)getHeight());
-				}
+				else
+					refresh();
 				return;
 			}
 			index++;
 		}
 	}
 
+	/**
+	 * Removes all the items added with addTextItem(), scrolling the list back to its top.
+	 * <p>The width of the list is not reduced, to avoid the list (and the
+	 * window it belongs to) changing size each time it is refilled.
+	 */
+	public void removeAllItems()
+	{
+		items.clear();
+		firstItem	= 0;
+		refresh();
+	}
+
 	/**
 	 * Returns the id associated with element, if element is one of the
 	 * children of the group (recursively); or null otherwise.
@@ -255,16 +345,14 @@ public class GuiScrollList extends GuiGroup
 			scrollDown();
 			return (new Pair<>(GuiDefs.INTERNAL_ID, null));
 		}
-		// check for GuiLabel's 
-		int	count	= 0;
-		for (GuiElement guiItem : guiItems)
+		// check for GuiLabel's: return the data of the item currently shown in it
+		for (int i = 0; i < numOfShownItems; i++)
 		{
-			if (guiItem == null)
-				continue;
-			// GuiLabel found: return the corresponding data in items
-			if (guiItem == element)
-				return items.get(count+firstItem).getR();
-			count++;
+			if (guiItems[i] == element)
+			{
+				Integer	id	= source.getId(firstItem + i);
+				return id != null ? new Pair<>(id, source.getData(firstItem + i)) : null;
+			}
 		}
 		return null;
 	}
@@ -281,24 +369,17 @@ public class GuiScrollList extends GuiGroup
 	@Override
 	public GuiElement getChildFromId(int id)
 	{
-		int		from	= firstItem;
-		int		to		= firstItem + numOfShownItems - 1;
-		if (firstItem >= items.size())
-			return null;
-		if (to >= items.size())
-			to	= items.size() - 1;
-		for (int i = from; i <= to; i++)
+		for (int i = 0; i < numOfShownItems; i++)
 		{
-			if (items.get(i) == null)
-				continue;
-			if (items.get(i).getR().getL() == id)
-				return guiItems[i - firstItem];
+			Integer	itemId	= source.getId(firstItem + i);
+			if (itemId != null && itemId == id)
+				return guiItems[i];
 		}
 		return null;
 	}
 
 	/**
-	 * Sets the text of an item to a new String.
+	 * Sets the text of an item added with addTextItem() to a new String.
 	 * @param	id		the id of the item to change
 	 * @param	newText	the new text of the item
 	 */
@@ -308,6 +389,8 @@ public class GuiScrollList extends GuiGroup
 			if (item != null && item.getR().getL() == id)
 			{
 				item.setL(newText);
+				setItemsWidth((int)GuiDefs.getTextWidth(newText, GuiDefs.ITEM_SIZE));
+				updateTexts();
 				return;
 			}
 	}
@@ -325,6 +408,10 @@ public class GuiScrollList extends GuiGroup
 	{
 		int	finalH, finalW;		// the final height and width of the panel
 
+		refresh();
+		// measure the shown items, as items from a data source are not measured when added
+		for (int i = 0; i < numOfShownItems; i++)
+			setItemsWidth((int)GuiDefs.getTextWidth(shownTexts[i], GuiDefs.ITEM_SIZE));
 		// set total sizes
 		// HEIGHT: each item is ITEM_SIZE high + padding below, except last item which has no below padding
 		// + top and bottom margin
@@ -345,7 +432,6 @@ public class GuiScrollList extends GuiGroup
 		for (int i = 0, y = finalH - margin; i < numOfShownItems; i++,
 				y-=(GuiDefs.ITEM_SIZE+margin) )
 			guiItems[i].setPosition(margin, y, false);
-		updateTexts();
 	}
 
 	/**
@@ -358,11 +444,7 @@ public class GuiScrollList extends GuiGroup
 	{
 		player.addGuiElement(this);
 		for (GuiElement element : guiItems)
-		{
-			if (element == null)
-				continue;
 			player.addGuiElement(element);
-		}
 		player.addGuiElement(buttonNext);
 		player.addGuiElement(buttonPrev);
 		shown++;
@@ -378,11 +460,7 @@ public class GuiScrollList extends GuiGroup
 	{
 		player.removeGuiElement(this);
 		for (GuiElement element : guiItems)
-		{
-			if (element == null)
-				continue;
 			player.removeGuiElement(element);
-		}
 		player.removeGuiElement(buttonNext);
 		player.removeGuiElement(buttonPrev);
 		shown--;
@@ -410,13 +488,7 @@ public class GuiScrollList extends GuiGroup
 		super.removeChild(buttonPrev);
 		buttonPrev	= null;
 		for (GuiElement element : guiItems)
-		{
-			if (element == null)
-				continue;
-			if (element instanceof GuiGroup)
-				((GuiGroup)element).free();
 			super.removeChild(element);
-		}
 		guiItems	= null;
 		items.clear();
 	}
@@ -425,40 +497,102 @@ public class GuiScrollList extends GuiGroup
 	// PRIVATE HELPER METHODS
 	//********************
 
+	// Scrolls down by one page less one row; the items are counted again, as they may have changed.
 	private void scrollDown()
 	{
 		firstItem	+= maxNumOfShownItems-1;
-		if (firstItem + maxNumOfShownItems > numOfItems)
-			firstItem	= numOfItems - maxNumOfShownItems;
-		updateTexts();
+		refresh();
 	}
 
+	// Scrolls up by one page less one row; the items are counted again, as they may have changed.
 	private void scrollUp()
 	{
 		firstItem	-= maxNumOfShownItems-1;
 		if (firstItem < 0)
 			firstItem	= 0;
+		refresh();
+	}
+
+	// Sets the number of items, keeping the current scroll position if still valid.
+	private void resize(int size)
+	{
+		numOfItems		= size;
+		numOfShownItems	= Math.min(numOfItems, maxNumOfShownItems);
+		if (firstItem + numOfShownItems > numOfItems)
+			firstItem	= Math.max(numOfItems - maxNumOfShownItems, 0);
 		updateTexts();
 	}
 
 	private void updateArrows()
 	{
-		buttonPrev.setVisible(firstItem > 0);
-		buttonNext.setVisible(firstItem + maxNumOfShownItems < numOfItems);
+		boolean	visible	= firstItem > 0;
+		if (prevShown != visible)
+			buttonPrev.setVisible(prevShown = visible);
+		visible	= firstItem + maxNumOfShownItems < numOfItems;
+		if (nextShown != visible)
+			buttonNext.setVisible(nextShown = visible);
 	}
 
+	// Assigns to each row label the text and colour of the item now shown in it,
+	// updating only the labels whose text or colour actually changes.
 	private void updateTexts()
 	{
-		for (int i = 0; i < numOfShownItems; i++)
+		boolean	shrunk	= false;		// whether an item was missing, as the source shrank
+		for (int i = 0; i < maxNumOfShownItems; i++)
 		{
-			Pair<String,Pair<Integer,Object>>	item	= items.get(firstItem+i);
-			guiItems[i].setText(item.getL());
-			Integer	id	= item.getR().getL();
-			if (id != null)
-				guiItems[i].setFontColor(id == selectedItemId ?
-						GuiDefs.TEXT_SEL_COLOUR : GuiDefs.TEXT_COLOUR);
+			String	text;
+			int		colour	= GuiDefs.TEXT_COLOUR;
+			if (i < numOfShownItems)
+			{
+				text		= source.getText(firstItem+i);
+				Integer	id	= source.getId(firstItem+i);
+				if (id != null && id == selectedItemId)
+					colour	= GuiDefs.TEXT_SEL_COLOUR;
+				if (text == null)
+				{
+					text	= "";
+					shrunk	= true;
+				}
+			}
+			else
+				text	= "";
+			if (!text.equals(shownTexts[i]))
+			{
+				// rows are only clickable while they show an item
+				if (text.isEmpty() != shownTexts[i].isEmpty())
+					guiItems[i].setClickable(!text.isEmpty());
+				guiItems[i].setText(text);
+				shownTexts[i]	= text;
+			}
+			if (colour != shownColours[i])
+			{
+				guiItems[i].setFontColor(colour);
+				shownColours[i]	= colour;
+			}
 		}
 		updateArrows();
+		// if the source shrank since it was counted, count its items again
+		if (shrunk)
+		{
+			int		size	= source.size();
+			if (size < numOfItems)
+				resize(size);
+		}
+	}
+
+	/**
+	 * The default data source: the items added with addTextItem().
+	 */
+	private class ItemList implements DataSource
+	{
+		@Override
+		public int		size()				{ return items.size();					}
+		@Override
+		public String	getText(int index)	{ return items.get(index).getL();		}
+		@Override
+		public Integer	getId(int index)	{ return items.get(index).getR().getL();	}
+		@Override
+		public Object	getData(int index)	{ return items.get(index).getR().getR();	}
 	}
 
 }